@@ -0,0 +1,18 @@
+package org.dataflowanalysis.standalone.benchmarks;
+
+import org.dataflowanalysis.standalone.services.AnalyzeService;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Measures {@link AnalyzeService#analyzeAnnotate(String)}, which backs /api/analyze
+ */
+public class AnalyzeBenchmark extends DiagramBenchmark {
+    private final AnalyzeService analyzeService = new AnalyzeService();
+
+    @Benchmark
+    public String analyze() throws JsonProcessingException {
+        return analyzeService.analyzeAnnotate(diagram);
+    }
+}
@@ -0,0 +1,29 @@
+package org.dataflowanalysis.standalone.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the backend benchmarks and reports throughput, latency percentiles and allocation rate.
+ * The first argument is an optional regular expression selecting the benchmarks, the results are written to benchmark-results.json.
+ * The PCM benchmark only runs if the system property {@value LoadPCMBenchmark#MODEL_PROPERTY} is set
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        var options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : SyntheticDiagrams.class.getPackageName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("benchmark-results.json");
+
+        String pcmModel = System.getProperty(LoadPCMBenchmark.MODEL_PROPERTY);
+        if (pcmModel == null) {
+            options.exclude(LoadPCMBenchmark.class.getSimpleName());
+        } else {
+            options.jvmArgsAppend("-Ddfa.analysisCache.maxEntries=0", "-D" + LoadPCMBenchmark.MODEL_PROPERTY + "=" + pcmModel);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,51 @@
+package org.dataflowanalysis.standalone.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Common setup of all benchmarks that work on a {@link SyntheticDiagrams synthetic diagram}.
+ * The analysis result cache is disabled, so every invocation measures the complete analysis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Ddfa.analysisCache.maxEntries=0"})
+public abstract class DiagramBenchmark {
+    protected static final String NAME = "benchmark";
+    private static final long SEED = 42;
+
+    @Param({"10", "100", "1000", "5000"})
+    public int nodes;
+
+    @Param({"1", "10"})
+    public int constraints;
+
+    protected String diagram;
+
+    @Setup(Level.Trial)
+    public void createDiagram() throws Exception {
+        diagram = SyntheticDiagrams.create(nodes, constraints, SEED);
+        setUp();
+    }
+
+    /**
+     * Prepares the benchmark after the diagram was created
+     * @throws Exception If the preparation fails
+     */
+    protected void setUp() throws Exception {
+    }
+}
@@ -0,0 +1,22 @@
+package org.dataflowanalysis.standalone.benchmarks;
+
+import org.dataflowanalysis.standalone.services.LoadDDService;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures {@link LoadDDService#safeLoadAndConvertDFDString(String, String)}, which backs /api/loadDD
+ */
+public class LoadDDBenchmark extends DiagramBenchmark {
+    private final LoadDDService loadDDService = new LoadDDService();
+    private String message;
+
+    @Override
+    protected void setUp() throws Exception {
+        message = SyntheticDiagrams.toDataFlowDiagramMessage(diagram, NAME);
+    }
+
+    @Benchmark
+    public String loadDD() {
+        return loadDDService.safeLoadAndConvertDFDString(message, NAME);
+    }
+}
@@ -0,0 +1,56 @@
+package org.dataflowanalysis.standalone.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.dataflowanalysis.standalone.services.LoadPCMService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link LoadPCMService#safeLoadAndConvertPCMString(String)}, which backs /api/loadPCM.
+ * PCM models cannot be generated, so the benchmark loads all files of the folder given by the system property {@value #MODEL_PROPERTY}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class LoadPCMBenchmark {
+    public static final String MODEL_PROPERTY = "dfa.benchmark.pcmModel";
+    private final LoadPCMService loadPCMService = new LoadPCMService();
+    private String message;
+
+    @Setup(Level.Trial)
+    public void readModel() throws IOException {
+        String folder = System.getProperty(MODEL_PROPERTY);
+        if (folder == null) {
+            throw new IllegalStateException("No PCM model given, set " + MODEL_PROPERTY + " to a folder containing the model files");
+        }
+        var builder = new StringBuilder();
+        try (Stream<Path> files = Files.list(Path.of(folder))) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                builder.append("---FILE---").append(file.getFileName()).append(':').append(Files.readString(file));
+            }
+        }
+        message = builder.toString();
+    }
+
+    @Benchmark
+    public String loadPCM() {
+        return loadPCMService.safeLoadAndConvertPCMString(message);
+    }
+}
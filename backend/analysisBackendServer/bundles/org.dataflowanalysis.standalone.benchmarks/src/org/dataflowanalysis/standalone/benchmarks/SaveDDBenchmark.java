@@ -0,0 +1,16 @@
+package org.dataflowanalysis.standalone.benchmarks;
+
+import org.dataflowanalysis.standalone.services.SaveDDService;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures {@link SaveDDService#convertToDFDandStringify(String, String)}, which backs /api/saveDD
+ */
+public class SaveDDBenchmark extends DiagramBenchmark {
+    private final SaveDDService saveDDService = new SaveDDService();
+
+    @Benchmark
+    public String saveDD() {
+        return saveDDService.convertToDFDandStringify(diagram, NAME);
+    }
+}
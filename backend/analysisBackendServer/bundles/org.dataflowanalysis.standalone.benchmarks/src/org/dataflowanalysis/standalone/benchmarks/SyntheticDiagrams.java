@@ -0,0 +1,159 @@
+package org.dataflowanalysis.standalone.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.dataflowanalysis.converter.web2dfd.Web2DFDConverter;
+import org.dataflowanalysis.converter.web2dfd.WebEditorConverterModel;
+import org.dataflowanalysis.standalone.services.Util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Generates synthetic diagrams in the WebEditor Json representation.
+ * Nodes are grouped into connected parts of {@value #PART_SIZE} nodes. Each part starts with an external entity that sets the sensitivity of its data,
+ * which is forwarded along a chain of functions and stores with additional random flows, so the analysis has to propagate labels through every node
+ */
+public final class SyntheticDiagrams {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int PART_SIZE = 10;
+    private static final String[] CONSTRAINTS = {"data Sensitivity.Personal neverFlows vertex Location.nonEU",
+            "data Sensitivity.Public neverFlows vertex Encryption.Encrypted", "data Sensitivity.Personal neverFlows vertex Location.EU"};
+
+    private SyntheticDiagrams() {
+    }
+
+    /**
+     * Creates a serialized diagram
+     * @param nodes Number of nodes
+     * @param constraints Number of constraints
+     * @param seed Seed of the random flows, equal seeds create equal diagrams
+     * @return Serialized WebEditor Json representation
+     */
+    public static String create(int nodes, int constraints, long seed) {
+        var random = new Random(seed);
+        ObjectNode diagram = objectMapper.createObjectNode();
+        ObjectNode model = diagram.putObject("model");
+        model.put("type", "graph");
+        model.put("id", "root");
+        ArrayNode children = model.putArray("children");
+
+        for (int node = 0; node < nodes; node++) {
+            children.add(createNode(node));
+        }
+        for (int node = 0; node < nodes; node++) {
+            int partStart = node - node % PART_SIZE;
+            int partEnd = Math.min(partStart + PART_SIZE, nodes);
+            if (node + 1 < partEnd) {
+                children.add(createFlow(node, node + 1));
+            }
+            if (node + 2 < partEnd && random.nextInt(3) == 0) {
+                children.add(createFlow(node, node + 2 + random.nextInt(partEnd - node - 2)));
+            }
+        }
+
+        ArrayNode labelTypes = diagram.putArray("labelTypes");
+        addLabelType(labelTypes, "Sensitivity", "Personal", "Public");
+        addLabelType(labelTypes, "Location", "EU", "nonEU");
+        addLabelType(labelTypes, "Encryption", "Encrypted");
+
+        ArrayNode constraintArray = diagram.putArray("constraints");
+        for (int constraint = 0; constraint < constraints; constraint++) {
+            ObjectNode constraintNode = constraintArray.addObject();
+            constraintNode.put("name", "Constraint" + constraint);
+            constraintNode.put("constraint", CONSTRAINTS[constraint % CONSTRAINTS.length]);
+        }
+
+        diagram.put("mode", "edit");
+        diagram.put("version", 1);
+        return diagram.toString();
+    }
+
+    /**
+     * Converts a serialized diagram into the message accepted by the loadDD endpoint
+     * @param diagram Serialized WebEditor Json representation
+     * @param name Name of the DFD and DD
+     * @return Serialized DFD and DD separated by {@code :DD:}
+     * @throws IOException If the temporary files cannot be written
+     */
+    public static String toDataFlowDiagramMessage(String diagram, String name) throws IOException {
+        var dfd = new Web2DFDConverter().convert(new WebEditorConverterModel(Util.deserializeJson(diagram)));
+        Path folder = Files.createTempDirectory("dfa-benchmark");
+        try {
+            dfd.save(folder.toString(), name);
+            return Files.readString(folder.resolve(name + ".dataflowdiagram")) + "\n:DD:\n" + Files.readString(folder.resolve(name + ".datadictionary"));
+        } finally {
+            try (Stream<Path> paths = Files.walk(folder)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static ObjectNode createNode(int node) {
+        boolean source = node % PART_SIZE == 0;
+        ObjectNode child = objectMapper.createObjectNode();
+        child.put("id", "n" + node);
+        child.put("type", source ? "node:input-output" : node % 4 == 0 ? "node:storage" : "node:function");
+        child.put("text", "Node " + node);
+
+        ArrayNode labels = child.putArray("labels");
+        addLabel(labels, "Location", node % 3 == 0 ? "nonEU" : "EU");
+        if (node % 5 == 0) {
+            addLabel(labels, "Encryption", "Encrypted");
+        }
+
+        ArrayNode ports = child.putArray("ports");
+        if (!source) {
+            addPort(ports, "n" + node + "-in", "port:dfd-input", null);
+        }
+        String behavior = source ? "set Sensitivity." + (node % 20 == 0 ? "Personal" : "Public") : "forward data";
+        addPort(ports, "n" + node + "-out", "port:dfd-output", behavior);
+        child.putArray("children");
+        return child;
+    }
+
+    private static ObjectNode createFlow(int source, int target) {
+        ObjectNode flow = objectMapper.createObjectNode();
+        flow.put("id", "f" + source + "-" + target);
+        flow.put("type", "edge:arrow");
+        flow.put("sourceId", "n" + source + "-out");
+        flow.put("targetId", "n" + target + "-in");
+        flow.put("text", "data");
+        flow.putArray("children");
+        return flow;
+    }
+
+    private static void addPort(ArrayNode ports, String id, String type, String behavior) {
+        ObjectNode port = ports.addObject();
+        port.put("id", id);
+        port.put("type", type);
+        if (behavior != null) {
+            port.put("behavior", behavior);
+        }
+        port.putArray("children");
+    }
+
+    private static void addLabel(ArrayNode labels, String labelType, String value) {
+        ObjectNode label = labels.addObject();
+        label.put("labelTypeId", labelType);
+        label.put("labelTypeValueId", labelType + "." + value);
+    }
+
+    private static void addLabelType(ArrayNode labelTypes, String name, String... values) {
+        ObjectNode labelType = labelTypes.addObject();
+        labelType.put("id", name);
+        labelType.put("name", name);
+        ArrayNode valueArray = labelType.putArray("values");
+        for (String value : values) {
+            ObjectNode valueNode = valueArray.addObject();
+            valueNode.put("id", name + "." + value);
+            valueNode.put("text", value);
+        }
+    }
+}
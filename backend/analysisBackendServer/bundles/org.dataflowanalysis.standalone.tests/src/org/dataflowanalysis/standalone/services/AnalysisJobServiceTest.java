@@ -0,0 +1,108 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that newer jobs of a session supersede older ones and that cancelled jobs are never started
+ */
+public class AnalysisJobServiceTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AnalysisJobService jobService;
+
+    @BeforeEach
+    public void createJobService() {
+        jobService = new AnalysisJobService(new AnalysisExecutor(1, 2, true), 300);
+    }
+
+    @AfterEach
+    public void releaseBlockingJob() {
+        release.countDown();
+    }
+
+    @Test
+    public void newerJobSupersedesPendingJobOfTheSameKey() throws Exception {
+        var blocking = submitBlockingJob();
+        var started = new AtomicBoolean();
+        var superseded = jobService.submit("session", "first", () -> {
+            started.set(true);
+            return "first";
+        });
+        var newest = jobService.submit("session", "second", () -> "second");
+
+        assertEquals(AnalysisJob.Status.CANCELLED, superseded.getStatus());
+        release.countDown();
+        assertEquals("second", newest.getResult().get(5, TimeUnit.SECONDS));
+        assertEquals("blocking", blocking.getResult().get(5, TimeUnit.SECONDS));
+        assertEquals(AnalysisJob.Status.DONE, newest.getStatus());
+        assertFalse(started.get(), "Superseded job was started");
+    }
+
+    @Test
+    public void jobsWithOtherKeysAreNotSuperseded() throws Exception {
+        submitBlockingJob();
+        var first = jobService.submit("session", "first", () -> "first");
+        var other = jobService.submit("other", "other", () -> "other");
+
+        release.countDown();
+        assertEquals("first", first.getResult().get(5, TimeUnit.SECONDS));
+        assertEquals("other", other.getResult().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelledRunningJobIsInterrupted() throws Exception {
+        var running = new CountDownLatch(1);
+        var interrupted = new CountDownLatch(1);
+        var job = jobService.submit(null, "running", () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "running";
+        });
+
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        assertEquals(AnalysisJob.Status.RUNNING, job.getStatus());
+        job.cancel("Cancelled by test");
+        assertEquals(AnalysisJob.Status.CANCELLED, job.getStatus());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Cancelled job was not interrupted");
+    }
+
+    @Test
+    public void rejectsJobsWhenTheQueueIsFull() {
+        submitBlockingJob();
+        jobService.submit(null, "queued", () -> "queued");
+        jobService.submit(null, "queued", () -> "queued");
+
+        assertThrows(RejectedExecutionException.class, () -> jobService.submit(null, "rejected", () -> "rejected"));
+    }
+
+    @Test
+    public void finishedJobsCanBeQueried() throws Exception {
+        var job = jobService.submit(null, "diagram", () -> "result");
+        job.getResult().get(5, TimeUnit.SECONDS);
+
+        assertEquals(job, jobService.getJob(job.getId()));
+        assertTrue(job.getStatusJson().contains("\"DONE\""));
+    }
+
+    private AnalysisJob submitBlockingJob() {
+        return jobService.submit(null, "blocking", () -> {
+            release.await();
+            return "blocking";
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests the newline delimited Json output of the batch analysis
+ */
+public class BatchAnalysisServiceTest {
+    @BeforeAll
+    public static void initialize() {
+        ModelResources.initialize();
+    }
+
+    @Test
+    public void reportsInvalidLinesWithTheirIndex() throws IOException {
+        var output = analyze(new BatchAnalysisService(new AnalysisExecutor(2, 8, true), 2), "not json\n\n{\"name\": \"wrapped\", \"model\": {\"model\": 5}}\n");
+
+        assertEquals(2, output.size());
+        assertEquals(0, output.get(0).get("index").asInt());
+        assertEquals("#0", output.get(0).get("name").asText());
+        assertEquals("Invalid Json Model", output.get(0).get("error").asText());
+        assertEquals(1, output.get(1).get("index").asInt());
+        assertEquals("wrapped", output.get(1).get("name").asText());
+        assertEquals("Invalid Json Model", output.get(1).get("error").asText());
+    }
+
+    @Test
+    public void analyzesOnTheCallingThreadIfTheExecutorIsFull() throws IOException {
+        var service = new BatchAnalysisService(new AnalysisExecutor(1, 1, true), 8);
+        var output = analyze(service, "not json\n".repeat(20));
+
+        assertEquals(20, output.size());
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals(i, output.get(i).get("index").asInt());
+        }
+    }
+
+    @Test
+    public void reportsViolationsOfEveryDiagram() throws IOException {
+        var sample = TestModels.createSampleModel();
+        var wrapped = Util.objectMapper.createObjectNode().put("name", "sample");
+        wrapped.set("model", sample);
+        var service = new BatchAnalysisService(new AnalysisExecutor(2, 8, true), 2);
+        var input = sample + "\n" + wrapped + "\n" + sample + "\n";
+
+        var output = analyze(service, input);
+        assertEquals(3, output.size());
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals(i, output.get(i).get("index").asInt());
+            assertTrue(output.get(i).get("violations").isArray(), output.get(i).toString());
+        }
+        assertEquals("sample", output.get(1).get("name").asText());
+
+        //The threads of the service are reused by the next batch
+        assertEquals(3, analyze(service, input).size());
+    }
+
+    @Test
+    public void reportsUnparsableConstraints() throws IOException {
+        var model = TestModels.createSampleModel();
+        ((ObjectNode) model.get("constraints").get(0)).put("name", "Broken constraint").put("constraint", "this is not a constraint");
+
+        var output = analyze(new BatchAnalysisService(new AnalysisExecutor(1, 4, true), 1), model + "\n");
+        assertEquals("Unable to parse constraint: Broken constraint", output.get(0).get("error").asText());
+    }
+
+    /**
+     * Runs a batch and returns its output lines ordered by the index of their diagram
+     */
+    private static List<JsonNode> analyze(BatchAnalysisService service, String input) throws IOException {
+        var output = new ByteArrayOutputStream();
+        service.analyze(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, false, false);
+        return output.toString(StandardCharsets.UTF_8).lines()
+                .map(line -> {
+                    try {
+                        return Util.objectMapper.readTree(line);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Output line is not Json: " + line, e);
+                    }
+                })
+                .sorted(Comparator.comparingInt(line -> line.get("index").asInt()))
+                .toList();
+    }
+}
@@ -0,0 +1,83 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the bounds of the cache used for analysis results, parsed constraints and editing sessions
+ */
+public class BoundedCacheTest {
+    @Test
+    public void evictsLeastRecentlyUsedEntryWhenFull() {
+        var cache = new BoundedCache<String, String>(2, 100, 0);
+        cache.put("a", "A", 1);
+        cache.put("b", "B", 1);
+        cache.get("a");
+        cache.put("c", "C", 1);
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1, cache.getStatistics().evictions());
+        assertEquals(2, cache.getStatistics().size());
+    }
+
+    @Test
+    public void evictsUntilWeightFits() {
+        var cache = new BoundedCache<String, String>(10, 10, 0);
+        cache.put("a", "A", 4);
+        cache.put("b", "B", 4);
+        cache.put("c", "C", 7);
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(7, cache.getStatistics().weight());
+    }
+
+    @Test
+    public void skipsEntriesHeavierThanTheCache() {
+        var cache = new BoundedCache<String, String>(10, 10, 0);
+        cache.put("a", "A", 11);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getStatistics().size());
+    }
+
+    @Test
+    public void replacingAnEntryUpdatesTheWeight() {
+        var cache = new BoundedCache<String, String>(10, 10, 0);
+        cache.put("a", "A", 4);
+        cache.put("a", "A2", 7);
+
+        assertEquals("A2", cache.get("a"));
+        assertEquals(7, cache.getStatistics().weight());
+        cache.remove("a");
+        assertEquals(0, cache.getStatistics().weight());
+    }
+
+    @Test
+    public void disabledCacheStoresNothing() {
+        var cache = new BoundedCache<String, String>(0, 10, 0);
+        cache.put("a", "A", 1);
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getStatistics().misses());
+    }
+
+    @Test
+    public void expiresEntriesAfterTtl() throws InterruptedException {
+        var cache = new BoundedCache<String, String>(10, 10, 1);
+        cache.put("a", "A", 1);
+        assertEquals("A", cache.get("a"));
+
+        Thread.sleep(1100);
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getStatistics().hits());
+        assertEquals(1, cache.getStatistics().misses());
+        assertEquals(1, cache.getStatistics().evictions());
+        assertEquals(0, cache.getStatistics().weight());
+    }
+}
@@ -0,0 +1,81 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests that the canonical hash only changes with the analysis relevant parts of a model
+ */
+public class CanonicalHashTest {
+    private static final String MODEL = """
+            {"model": {"type": "graph", "id": "root", "children": [
+              {"type": "node:storage", "id": "a", "text": "Database", "position": {"x": 1, "y": 2}, "size": {"width": 60, "height": 30},
+               "labels": [{"labelTypeId": "t", "labelTypeValueId": "v"}], "ports": [], "annotations": []}
+            ]}, "labelTypes": [], "constraints": [], "mode": "edit"}
+            """;
+
+    @Test
+    public void ignoresLayoutAndEditorFields() throws IOException {
+        var node = read(MODEL);
+        var edited = read(MODEL);
+        var child = (ObjectNode) edited.get("model").get("children").get(0);
+        child.putObject("position").put("x", 100).put("y", 200);
+        child.putObject("size").put("width", 10).put("height", 10);
+        child.put("selected", true);
+        child.put("hoverFeedback", true);
+        child.put("opacity", 0.5);
+        child.putArray("features").add("x");
+        ((ObjectNode) edited.get("model")).putObject("scroll").put("x", 3);
+        ((ObjectNode) edited.get("model")).put("zoom", 2);
+
+        assertEquals(CanonicalHash.of(node), CanonicalHash.of(edited));
+    }
+
+    @Test
+    public void ignoresAnnotations() throws IOException {
+        var node = read(MODEL);
+        var edited = read(MODEL);
+        ((ObjectNode) edited.get("model").get("children").get(0)).withArray("annotations")
+                .addObject()
+                .put("message", "Propagated: t.v")
+                .put("icon", "tag");
+
+        assertEquals(CanonicalHash.of(node).hash(), CanonicalHash.of(edited).hash());
+    }
+
+    @Test
+    public void ignoresFieldOrderAndNullValues() throws IOException {
+        var node = read(MODEL);
+        var edited = read("""
+                {"mode": "edit", "constraints": [], "labelTypes": [], "model": {"children": [
+                  {"annotations": [], "ports": [], "labels": [{"labelTypeValueId": "v", "labelTypeId": "t"}], "text": "Database", "id": "a",
+                   "type": "node:storage", "routerKind": null}
+                ], "id": "root", "type": "graph"}}
+                """);
+
+        assertEquals(CanonicalHash.of(node).hash(), CanonicalHash.of(edited).hash());
+    }
+
+    @Test
+    public void changesWithAnalysisRelevantFields() throws IOException {
+        var node = read(MODEL);
+        var edited = read(MODEL);
+        ((ObjectNode) edited.get("model").get("children").get(0).get("labels").get(0)).put("labelTypeValueId", "w");
+        var renamed = read(MODEL);
+        ((ObjectNode) renamed.get("model").get("children").get(0)).put("text", "Other");
+
+        assertNotEquals(CanonicalHash.of(node).hash(), CanonicalHash.of(edited).hash());
+        assertNotEquals(CanonicalHash.of(node).hash(), CanonicalHash.of(renamed).hash());
+    }
+
+    private static JsonNode read(String json) throws IOException {
+        return Util.objectMapper.readTree(json);
+    }
+}
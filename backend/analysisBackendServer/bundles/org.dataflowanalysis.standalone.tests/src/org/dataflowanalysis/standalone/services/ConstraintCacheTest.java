@@ -0,0 +1,44 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that parsed constraints and constraints that failed to parse are both served from the cache
+ */
+public class ConstraintCacheTest {
+    private static final String INVALID_CONSTRAINT = "this is not a constraint";
+
+    @BeforeAll
+    public static void initialize() {
+        ModelResources.initialize();
+    }
+
+    @Test
+    public void cachesConstraintsThatFailedToParse() {
+        var cache = new ConstraintCache(16);
+        var first = assertThrows(IllegalArgumentException.class, () -> cache.parse("Broken", INVALID_CONSTRAINT));
+        var second = assertThrows(IllegalArgumentException.class, () -> cache.parse("Broken", INVALID_CONSTRAINT));
+
+        assertEquals("Unable to parse constraint: Broken", first.getMessage());
+        assertEquals(first.getMessage(), second.getMessage());
+        var statistics = cache.getStatistics();
+        assertEquals(1, statistics.misses());
+        assertEquals(1, statistics.hits());
+        assertEquals(1, statistics.size());
+    }
+
+    @Test
+    public void failedConstraintDoesNotHideOtherNames() {
+        var cache = new ConstraintCache(16);
+        assertThrows(IllegalArgumentException.class, () -> cache.parse("Broken", INVALID_CONSTRAINT));
+        var renamed = assertThrows(IllegalArgumentException.class, () -> cache.parse("Also broken", INVALID_CONSTRAINT));
+
+        assertTrue(renamed.getMessage().endsWith("Also broken"));
+        assertEquals(2, cache.getStatistics().misses());
+    }
+}
@@ -0,0 +1,94 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.dataflowanalysis.converter.dfd2web.DFD2WebConverter;
+import org.dataflowanalysis.converter.web2dfd.Web2DFDConverter;
+import org.dataflowanalysis.converter.web2dfd.WebEditorConverterModel;
+import org.dataflowanalysis.converter.web2dfd.model.Annotation;
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests that the analysis on single transpose flow graphs annotates models the same way as the converter of the analysis, whether the flow graphs
+ * are analyzed sequentially or in parallel
+ */
+public class FlowGraphAnalysisTest {
+    private static final Comparator<Annotation> ANNOTATION_ORDER = Comparator
+            .comparing(Annotation::tfg, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Annotation::message)
+            .thenComparing(Annotation::icon, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Annotation::color, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    @BeforeAll
+    public static void initialize() {
+        ModelResources.initialize();
+    }
+
+    @Test
+    public void sampleModelMatchesConverter() throws IOException {
+        assertSameAnnotationsAsConverter(TestModels.createSampleModel());
+    }
+
+    @Test
+    public void twoComponentModelMatchesConverter() throws IOException {
+        assertSameAnnotationsAsConverter(TestModels.createTwoComponentModel());
+    }
+
+    @Test
+    public void parallelAnalysisMatchesSequentialAnalysis() throws IOException {
+        var model = TestModels.createTwoComponentModel().toString();
+        var pool = new ForkJoinPool(4);
+        try {
+            var sequential = new FlowGraphAnalysis().analyze(Util.deserializeJson(model), null).annotations();
+            var parallel = new FlowGraphAnalysis(pool, 0).analyze(Util.deserializeJson(model), null).annotations();
+
+            assertFalse(sequential.isEmpty());
+            assertEquals(sequential, parallel);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameAnnotationsAsConverter(ObjectNode model) {
+        var converted = convert(Util.deserializeJson(model.toString()));
+        var annotations = new FlowGraphAnalysis().analyze(Util.deserializeJson(model.toString()), null).annotations();
+
+        boolean annotated = false;
+        for (var node : converted.model().children()) {
+            if (!node.type().startsWith("node")) {
+                continue;
+            }
+            var expected = sorted(node.annotations() == null ? List.of() : node.annotations());
+            annotated |= !expected.isEmpty();
+            assertEquals(expected, sorted(annotations.getOrDefault(node.id(), List.of())), "Annotations of " + node.id());
+        }
+        assertTrue(annotated, "Converter did not annotate any node");
+    }
+
+    /**
+     * Annotates a model the way the backend did before analyzing single transpose flow graphs
+     * @param webEditorDfd Model to be annotated
+     * @return Model annotated by the converter
+     */
+    private static WebEditorDfd convert(WebEditorDfd webEditorDfd) {
+        var dfd = new Web2DFDConverter().convert(new WebEditorConverterModel(webEditorDfd));
+        var converter = new DFD2WebConverter();
+        converter.setConstraints(Util.parseConstraints(webEditorDfd).stream().map(NamedConstraint::constraint).toList());
+        return converter.convert(dfd).getModel();
+    }
+
+    private static List<Annotation> sorted(List<Annotation> annotations) {
+        return annotations.stream().sorted(ANNOTATION_ORDER).toList();
+    }
+}
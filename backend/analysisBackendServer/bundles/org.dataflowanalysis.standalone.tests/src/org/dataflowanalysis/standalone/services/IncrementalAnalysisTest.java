@@ -0,0 +1,65 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dataflowanalysis.converter.web2dfd.model.Annotation;
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests the session scoped analysis on a model consisting of the sample diagram and a copy of it, of which only the copy is edited
+ */
+public class IncrementalAnalysisTest {
+    private static final String SESSION = "incremental-test";
+
+    @BeforeAll
+    public static void initialize() {
+        ModelResources.initialize();
+    }
+
+    @Test
+    public void flowGraphIdsAreUniqueAfterEditingOneComponent() throws IOException {
+        var model = TestModels.createTwoComponentModel();
+        var analyzeService = new AnalyzeService();
+        analyzeService.analyzeAnnotate(model.toString(), SESSION);
+
+        //Moves the user of the copy outside the EU, which only changes the flow graphs of the copy
+        var copiedUser = TestModels.findChild(model, "7oii5l" + TestModels.COPY_SUFFIX);
+        ((ObjectNode) copiedUser.get("labels").get(0)).put("labelTypeValueId", "5hnugm");
+        var analyzed = Util.deserializeJson(analyzeService.analyzeAnnotate(model.toString(), SESSION));
+
+        Set<Integer> originalTfgs = collectTfgs(analyzed, false);
+        Set<Integer> copiedTfgs = collectTfgs(analyzed, true);
+        assertFalse(originalTfgs.isEmpty());
+        assertFalse(copiedTfgs.isEmpty());
+        assertTrue(Collections.disjoint(originalTfgs, copiedTfgs), "Flow graph ids " + originalTfgs + " and " + copiedTfgs + " overlap");
+
+        var expected = new FlowGraphAnalysis().analyze(Util.deserializeJson(model.toString()), null).annotations();
+        for (var node : analyzed.model().children()) {
+            if (node.type().startsWith("node")) {
+                assertEquals(expected.getOrDefault(node.id(), List.of()), node.annotations(), "Annotations of " + node.id());
+            }
+        }
+    }
+
+    private static Set<Integer> collectTfgs(WebEditorDfd analyzed, boolean copy) {
+        Set<Integer> tfgs = new HashSet<>();
+        for (var node : analyzed.model().children()) {
+            if (node.type().startsWith("node") && node.id().endsWith(TestModels.COPY_SUFFIX) == copy) {
+                node.annotations().stream().map(Annotation::tfg).forEach(tfgs::add);
+            }
+        }
+        return tfgs;
+    }
+}
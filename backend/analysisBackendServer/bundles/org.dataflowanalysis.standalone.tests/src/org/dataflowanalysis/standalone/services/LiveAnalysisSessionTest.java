@@ -0,0 +1,69 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests the updates of a live analysis connection
+ */
+public class LiveAnalysisSessionTest {
+    @BeforeAll
+    public static void initialize() {
+        ModelResources.initialize();
+    }
+
+    @Test
+    public void annotatesModelsWithoutAnnotationArrays() throws Exception {
+        var model = TestModels.createSampleModel();
+        for (var child : model.get("model").get("children")) {
+            ((ObjectNode) child).remove("annotations");
+        }
+        var session = new LiveAnalysisSession();
+        try {
+            var update = Util.objectMapper.readTree(session.handleMessage(createModelMessage(model)).get(30, TimeUnit.SECONDS));
+            assertFalse(update.get("nodes").isEmpty(), update.toString());
+
+            //The same model again does not change any annotation
+            assertNull(session.handleMessage(createModelMessage(model)).get(30, TimeUnit.SECONDS));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void newerMessageCancelsPendingAnalysis() throws Exception {
+        var model = TestModels.createSampleModel();
+        var session = new LiveAnalysisSession();
+        try {
+            var first = session.handleMessage(createModelMessage(model));
+            var second = session.handleMessage(createModelMessage(model));
+            second.get(30, TimeUnit.SECONDS);
+            assertTrue(first.isDone());
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void rejectsDeltaBeforeModel() {
+        var session = new LiveAnalysisSession();
+        assertThrows(IllegalArgumentException.class, () -> session.handleMessage("{\"type\": \"delta\", \"remove\": [\"a\"]}"));
+        assertThrows(IllegalArgumentException.class, () -> session.handleMessage("not json"));
+    }
+
+    private static String createModelMessage(ObjectNode model) {
+        var message = Util.objectMapper.createObjectNode();
+        message.put("type", "model");
+        message.set("model", model);
+        return message.toString();
+    }
+}
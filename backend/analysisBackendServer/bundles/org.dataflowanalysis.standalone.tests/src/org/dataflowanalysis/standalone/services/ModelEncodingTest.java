@@ -0,0 +1,84 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Tests that diagrams keep their structure when they are exchanged in Smile instead of Json
+ */
+public class ModelEncodingTest {
+    private static final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    @Test
+    public void selectsEncodingFromHeaders() {
+        assertEquals(ModelEncoding.SMILE, ModelEncoding.ofContentType("application/x-jackson-smile"));
+        assertEquals(ModelEncoding.JSON, ModelEncoding.ofContentType("application/json"));
+        assertEquals(ModelEncoding.JSON, ModelEncoding.ofContentType(null));
+        assertEquals(ModelEncoding.SMILE, ModelEncoding.ofAccept("application/json, application/x-jackson-smile"));
+        assertEquals(ModelEncoding.JSON, ModelEncoding.ofAccept("*/*"));
+        assertEquals(ModelEncoding.JSON, ModelEncoding.ofAccept(null));
+    }
+
+    @Test
+    public void writesSmileOfSameStructure() throws IOException {
+        var model = TestModels.createSampleModel();
+        var output = new ByteArrayOutputStream();
+        ModelEncoding.SMILE.write(model, output);
+
+        assertNotEquals(Util.objectMapper.writeValueAsString(model), output.toString());
+        assertEquals(model, smileMapper.readTree(output.toByteArray()));
+    }
+
+    @Test
+    public void transcodesSerializedJson() throws IOException {
+        var model = TestModels.createSampleModel();
+        var json = ByteBuffer.wrap(Util.objectMapper.writeValueAsBytes(model));
+
+        var smile = new ByteArrayOutputStream();
+        ModelEncoding.SMILE.writeJson(json, smile);
+        var plain = new ByteArrayOutputStream();
+        ModelEncoding.JSON.writeJson(json, plain);
+
+        assertEquals(model, smileMapper.readTree(smile.toByteArray()));
+        assertEquals(model, Util.objectMapper.readTree(plain.toByteArray()));
+        assertEquals(0, json.position());
+    }
+
+    @Test
+    public void roundTripsDiagramThroughSmile() throws IOException {
+        var model = TestModels.createSampleModel();
+        var fromJson = ModelEncoding.JSON.read(new ByteArrayInputStream(Util.objectMapper.writeValueAsBytes(model)));
+        var fromSmile = ModelEncoding.SMILE.read(new ByteArrayInputStream(smileMapper.writeValueAsBytes(model)));
+
+        var smile = new ByteArrayOutputStream();
+        ModelEncoding.SMILE.write(fromSmile, smile);
+        var roundTripped = ModelEncoding.SMILE.read(new ByteArrayInputStream(smile.toByteArray()));
+
+        assertEquals(serialize(fromJson), serialize(roundTripped));
+    }
+
+    @Test
+    public void rejectsInvalidSmile() {
+        var input = new ByteArrayInputStream(new byte[] {1, 2, 3});
+
+        assertThrows(IllegalArgumentException.class, () -> ModelEncoding.SMILE.read(input));
+    }
+
+    private static JsonNode serialize(Object value) throws IOException {
+        var output = new ByteArrayOutputStream();
+        ModelEncoding.JSON.write(value, output);
+        return Util.objectMapper.readTree(output.toByteArray());
+    }
+}
@@ -0,0 +1,99 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the eviction order and the folder permissions of the store for uploaded models
+ */
+public class ModelStoreTest {
+    private static final String UPLOAD = "u".repeat(100);
+    private static final String WEB_EDITOR_DFD = "w".repeat(100);
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    public void evictsLeastRecentlyUsedEntry() {
+        var store = new ModelStore(tempDirectory.resolve("store"), 450);
+        store.put("a", UPLOAD, WEB_EDITOR_DFD);
+        store.put("b", UPLOAD, WEB_EDITOR_DFD);
+        assertNotNull(store.getWebEditorDfd("a"));
+        store.put("c", UPLOAD, WEB_EDITOR_DFD);
+
+        assertEquals(WEB_EDITOR_DFD, read(store.getWebEditorDfd("a")));
+        assertNull(store.getWebEditorDfd("b"));
+        assertEquals(WEB_EDITOR_DFD, read(store.getWebEditorDfd("c")));
+        assertFalse(Files.exists(tempDirectory.resolve("store").resolve("b")));
+        assertEquals(1, store.getStatistics().evictions());
+        assertEquals(2, store.getStatistics().size());
+        assertEquals(400, store.getStatistics().weight());
+    }
+
+    @Test
+    public void keepsEntriesAcrossRestarts() {
+        var directory = tempDirectory.resolve("store");
+        new ModelStore(directory, 450).put("a", UPLOAD, WEB_EDITOR_DFD);
+
+        var store = new ModelStore(directory, 450);
+
+        assertEquals(WEB_EDITOR_DFD, read(store.getWebEditorDfd("a")));
+        assertEquals(1, store.getStatistics().size());
+    }
+
+    @Test
+    public void doesNotStoreEntryLargerThanLimit() {
+        var store = new ModelStore(tempDirectory.resolve("store"), 150);
+        store.put("a", UPLOAD, WEB_EDITOR_DFD);
+
+        assertNull(store.getWebEditorDfd("a"));
+        assertEquals(0, store.getStatistics().size());
+    }
+
+    @Test
+    public void isDisabledWithoutLimit() {
+        var store = new ModelStore(tempDirectory.resolve("store"), 0);
+        store.put("a", UPLOAD, WEB_EDITOR_DFD);
+
+        assertNull(store.getWebEditorDfd("a"));
+        assertFalse(Files.exists(tempDirectory.resolve("store")));
+    }
+
+    @Test
+    public void createsFolderForOwnerOnly() throws IOException {
+        assumeTrue(tempDirectory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        var directory = tempDirectory.resolve("parent").resolve("store");
+        new ModelStore(directory, 450);
+
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+    }
+
+    @Test
+    public void restrictsExistingFolderToOwner() throws IOException {
+        assumeTrue(tempDirectory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        var directory = Files.createDirectory(tempDirectory.resolve("store"));
+        Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxrwxrwx"));
+        var store = new ModelStore(directory, 450);
+        store.put("a", UPLOAD, WEB_EDITOR_DFD);
+
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+        assertNotNull(store.getWebEditorDfd("a"));
+    }
+
+    private static String read(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+}
@@ -0,0 +1,140 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that PCM uploads stay inside their folder and within their size limit, which the servlets answer with 400 and 413
+ */
+public class PCMUploadTest {
+    @Test
+    public void keepsFilesOfArchiveInSubFolders() throws IOException {
+        try (var upload = new PCMUpload(1000)) {
+            upload.addArchive(zip("model/default.usagemodel", "usage", "model/default.allocation", "allocation",
+                    "model/default.nodecharacteristics", "characteristics", "model/repository/default.repository", "repository"));
+
+            assertEquals("usage", Files.readString(upload.getUsageModel().toPath()));
+            assertEquals("allocation", Files.readString(upload.getAllocation().toPath()));
+            assertEquals("characteristics", Files.readString(upload.getNodeCharacteristics().toPath()));
+            assertEquals("repository", Files.readString(upload.getFolder().resolve("model/repository/default.repository")));
+        }
+    }
+
+    @Test
+    public void deletesFolderOnClose() throws IOException {
+        PCMUpload upload;
+        try (var created = new PCMUpload(1000)) {
+            upload = created;
+            upload.addFile("default.usagemodel", "usage");
+            assertTrue(Files.isDirectory(upload.getFolder()));
+        }
+        assertFalse(Files.exists(upload.getFolder()));
+    }
+
+    @Test
+    public void rejectsFileNamesLeavingFolder() throws IOException {
+        try (var upload = new PCMUpload(1000)) {
+            assertThrows(IllegalArgumentException.class, () -> upload.addFile("../default.usagemodel", "usage"));
+            assertThrows(IllegalArgumentException.class, () -> upload.addFile("model/../../default.usagemodel", "usage"));
+            assertThrows(IllegalArgumentException.class, () -> upload.addFile("..\\default.usagemodel", "usage"));
+            assertThrows(IllegalArgumentException.class, () -> upload.addFile(".", "usage"));
+            assertFalse(Files.exists(upload.getFolder().resolveSibling("default.usagemodel")));
+        }
+    }
+
+    @Test
+    public void rejectsArchiveEntriesLeavingFolder() throws IOException {
+        try (var upload = new PCMUpload(1000)) {
+            var exception = assertThrows(IllegalArgumentException.class, () -> upload.addArchive(zip("../../default.usagemodel", "usage")));
+
+            assertFalse(exception instanceof SizeLimitExceededException);
+            assertFalse(Files.exists(upload.getFolder().resolveSibling("default.usagemodel")));
+        }
+    }
+
+    @Test
+    public void rejectsFilesExceedingLimit() throws IOException {
+        try (var upload = new PCMUpload(10)) {
+            upload.addFile("default.usagemodel", "12345");
+            InputStream content = new ByteArrayInputStream("123456".getBytes(StandardCharsets.UTF_8));
+
+            assertThrows(SizeLimitExceededException.class, () -> upload.addFile("default.allocation", content));
+        }
+        try (var upload = new PCMUpload(10)) {
+            assertThrows(SizeLimitExceededException.class, () -> upload.addFile("default.usagemodel", "x".repeat(100_000)));
+        }
+    }
+
+    @Test
+    public void limitsUnpackedSizeOfArchive() throws IOException {
+        //Compresses to a few hundred bytes
+        var archive = zip("default.usagemodel", "x".repeat(1_000_000));
+        try (var upload = new PCMUpload(100_000)) {
+            assertThrows(SizeLimitExceededException.class, () -> upload.addArchive(archive));
+        }
+    }
+
+    @Test
+    public void createsKeyIndependentOfOrder() throws IOException {
+        String first;
+        String second;
+        String changed;
+        try (var upload = new PCMUpload(1000)) {
+            upload.addFile("default.usagemodel", "usage");
+            upload.addFile("default.allocation", "allocation");
+            first = upload.getKey();
+        }
+        try (var upload = new PCMUpload(1000)) {
+            upload.addFile("default.allocation", "allocation");
+            upload.addFile("default.usagemodel", "usage");
+            second = upload.getKey();
+        }
+        try (var upload = new PCMUpload(1000)) {
+            upload.addFile("default.allocation", "allocation");
+            upload.addFile("default.usagemodel", "changed");
+            changed = upload.getKey();
+        }
+        assertEquals(first, second);
+        assertNotEquals(first, changed);
+    }
+
+    @Test
+    public void requiresUsageModel() throws IOException {
+        try (var upload = new PCMUpload(1000)) {
+            upload.addFile("default.allocation", "allocation");
+
+            assertThrows(IllegalArgumentException.class, upload::getUsageModel);
+        }
+    }
+
+    /**
+     * Creates a zip archive
+     * @param entries Alternating names and contents of the entries
+     * @return Stream of the archive
+     */
+    private static InputStream zip(String... entries) throws IOException {
+        var output = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(output)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(entries[i]));
+                zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(output.toByteArray());
+    }
+}
@@ -0,0 +1,78 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Models shared by the analysis tests, all based on the sample diagram used for the warmup
+ */
+class TestModels {
+    static final String COPY_SUFFIX = "-copy";
+
+    private TestModels() {
+    }
+
+    /**
+     * Reads the sample diagram, every node gets an empty list of annotations
+     * @return Model in tree representation
+     */
+    static ObjectNode createSampleModel() throws IOException {
+        ObjectNode model;
+        try (InputStream input = Warmup.class.getResourceAsStream("warmup-diagram.json")) {
+            model = (ObjectNode) Util.objectMapper.readTree(input);
+        }
+        for (var child : model.get("model").get("children")) {
+            if (child.path("type").asText().startsWith("node")) {
+                ((ObjectNode) child).putArray("annotations");
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Creates a model that contains the sample diagram twice, the ids of the copy end with {@link #COPY_SUFFIX}
+     * @return Model in tree representation
+     */
+    static ObjectNode createTwoComponentModel() throws IOException {
+        var model = createSampleModel();
+        var children = (ArrayNode) model.get("model").get("children");
+        var copies = Util.objectMapper.createArrayNode();
+        for (var child : children) {
+            var copy = child.deepCopy();
+            renameIds(copy);
+            copies.add(copy);
+        }
+        children.addAll(copies);
+        return model;
+    }
+
+    /**
+     * Finds a node or flow of a model
+     * @param model Model in tree representation
+     * @param id Id of the node or flow
+     * @return Node or flow in tree representation
+     */
+    static JsonNode findChild(ObjectNode model, String id) {
+        for (var child : model.get("model").get("children")) {
+            if (child.path("id").asText().equals(id)) {
+                return child;
+            }
+        }
+        throw new IllegalArgumentException("No child " + id);
+    }
+
+    private static void renameIds(JsonNode child) {
+        var object = (ObjectNode) child;
+        for (var field : List.of("id", "sourceId", "targetId")) {
+            if (object.hasNonNull(field)) {
+                object.put(field, object.get(field).asText() + COPY_SUFFIX);
+            }
+        }
+        child.path("ports").forEach(TestModels::renameIds);
+    }
+}
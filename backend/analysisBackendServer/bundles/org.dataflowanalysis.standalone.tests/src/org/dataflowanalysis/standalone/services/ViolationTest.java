@@ -0,0 +1,79 @@
+package org.dataflowanalysis.standalone.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests the compact response that only contains the violating nodes
+ */
+public class ViolationTest {
+    private static final String CONSTRAINT_NAME = "No PII outside the EU";
+
+    @BeforeAll
+    public static void initialize() {
+        ModelResources.initialize();
+    }
+
+    @Test
+    public void collectsViolationsInModelOrder() throws IOException {
+        var webEditorDfd = Util.deserializeJson(TestModels.createSampleModel().toString());
+        var nodes = webEditorDfd.model().children().stream().filter(child -> child.type().startsWith("node")).toList();
+        var first = nodes.get(0);
+        var last = nodes.get(nodes.size() - 1);
+
+        var violations = Violation.collect(webEditorDfd, Map.of(
+                last.id(), new LinkedHashSet<>(List.of(CONSTRAINT_NAME, "Other")),
+                first.id(), new LinkedHashSet<>(List.of(CONSTRAINT_NAME)),
+                "unknown", new LinkedHashSet<>(List.of("Ignored"))));
+
+        assertEquals(List.of(new Violation(first.id(), first.text(), List.of(CONSTRAINT_NAME)),
+                new Violation(last.id(), last.text(), List.of(CONSTRAINT_NAME, "Other"))), violations);
+    }
+
+    @Test
+    public void responseOmitsLabelsUnlessRequested() throws IOException {
+        var summary = new AnalysisSummary(List.of(new Violation("a", "User", List.of(CONSTRAINT_NAME))), null);
+        var json = Util.objectMapper.readTree(Util.objectMapper.writeValueAsString(summary));
+
+        assertEquals(1, json.size());
+        assertEquals(CONSTRAINT_NAME, json.get("violations").get(0).get("constraints").get(0).asText());
+        assertNull(json.get("labels"));
+    }
+
+    @Test
+    public void keepsConstraintNamesWithSpaces() throws IOException {
+        var model = createViolatingModel();
+        var analyzeService = new AnalyzeService();
+
+        var violations = analyzeService.findViolations(Util.deserializeJson(model.toString()));
+        assertFalse(violations.isEmpty());
+        for (var violation : violations) {
+            assertEquals(List.of(CONSTRAINT_NAME), violation.constraints());
+        }
+        var summary = analyzeService.summarize(Util.deserializeJson(model.toString()), false, true);
+        assertEquals(violations, summary.violations());
+        assertNull(summary.labels());
+    }
+
+    /**
+     * Creates the sample model with the user moved outside the EU and a constraint whose name contains spaces
+     * @return Model in tree representation
+     */
+    private static ObjectNode createViolatingModel() throws IOException {
+        var model = TestModels.createSampleModel();
+        ((ObjectNode) TestModels.findChild(model, "7oii5l").get("labels").get(0)).put("labelTypeValueId", "5hnugm");
+        ((ObjectNode) model.get("constraints").get(0)).put("name", CONSTRAINT_NAME);
+        return model;
+    }
+}
@@ -0,0 +1,47 @@
+package org.dataflowanalysis.standalone;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.dataflowanalysis.standalone.services.AnalysisExecutor;
+import org.dataflowanalysis.standalone.services.BatchAnalysisService;
+import org.dataflowanalysis.standalone.services.ModelResources;
+
+/**
+ * Analyzes diagrams without starting the server, e.g. in CI.
+ * Usage: {@code BatchMain [--parallelism <n>] [--labels] [--skip-annotations] [<file>]}, reads diagrams in newline delimited Json from the file or standard input and writes the violations
+ * of each diagram to standard output. Exits with 0 if no diagram violates a constraint, 1 if a diagram violates a constraint and 2 if a diagram could not be analyzed
+ */
+public class BatchMain {
+	public static void main(String[] args) {
+		int parallelism = -1;
+		boolean includeLabels = false;
+		boolean skipAnnotations = false;
+		String file = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--parallelism") && i + 1 < args.length) {
+				parallelism = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--labels")) {
+				includeLabels = true;
+			} else if (args[i].equals("--skip-annotations")) {
+				skipAnnotations = true;
+			} else {
+				file = args[i];
+			}
+		}
+
+		ModelResources.initialize();
+		var batchService = parallelism > 0 ? new BatchAnalysisService(new AnalysisExecutor(parallelism, 2 * parallelism, true), parallelism)
+				: BatchAnalysisService.fromConfiguration();
+		try (InputStream input = file == null || file.equals("-") ? System.in : Files.newInputStream(Path.of(file))) {
+			var summary = batchService.analyze(input, System.out, includeLabels, skipAnnotations);
+			System.err.println(summary.diagrams() + " diagrams analyzed, " + summary.violating() + " with violations, " + summary.failed() + " failed");
+			System.exit(summary.failed() > 0 ? 2 : summary.violating() > 0 ? 1 : 0);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(2);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package org.dataflowanalysis.standalone.api;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.dataflowanalysis.standalone.services.LiveAnalysisSession;
+import org.dataflowanalysis.standalone.services.Metrics;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+/**
+ * WebSocket endpoint for live analysis. Keeps one model per connection and pushes changed annotations after every edit, see {@link LiveAnalysisSession}
+ */
+public class AnalysisSocket implements WebSocketListener {
+    private static final Logger logger = Logger.getLogger(AnalysisSocket.class);
+    private static final AtomicInteger openConnections = new AtomicInteger();
+
+    static {
+        Metrics.gauge("dfa_websocket_connections", "Number of open live analysis connections", openConnections::get);
+    }
+
+    private final LiveAnalysisSession analysisSession = new LiveAnalysisSession();
+    private volatile Session session;
+
+    @Override
+    public void onWebSocketConnect(Session session) {
+        this.session = session;
+        openConnections.incrementAndGet();
+    }
+
+    @Override
+    public void onWebSocketText(String message) {
+        try {
+            analysisSession.handleMessage(message).whenComplete((update, error) -> {
+                if (error == null) {
+                    if (update != null) {
+                        send(update);
+                    }
+                } else if (!(unwrap(error) instanceof CancellationException)) {
+                    var cause = unwrap(error);
+                    boolean expected = cause instanceof IllegalArgumentException || cause instanceof RejectedExecutionException;
+                    send(LiveAnalysisSession.createError(expected ? cause.getMessage() : "Internal server error"));
+                    if (!expected) {
+                        logger.error("Live analysis failed", cause);
+                    }
+                }
+            });
+        } catch (IllegalArgumentException | RejectedExecutionException e) {
+            send(LiveAnalysisSession.createError(e.getMessage()));
+        }
+    }
+
+    @Override
+    public void onWebSocketClose(int statusCode, String reason) {
+        analysisSession.close();
+        if (session != null) {
+            openConnections.decrementAndGet();
+        }
+        session = null;
+    }
+
+    @Override
+    public void onWebSocketError(Throwable cause) {
+        logger.debug("WebSocket error", cause);
+    }
+
+    private void send(String message) {
+        var currentSession = session;
+        if (currentSession != null && currentSession.isOpen()) {
+            currentSession.getRemote().sendString(message, WriteCallback.NOOP);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,33 @@
+package org.dataflowanalysis.standalone.api;
+
+import java.io.InputStream;
+
+import org.dataflowanalysis.standalone.services.BatchAnalysisService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Analyzes many diagrams in one request.
+ * The body contains one diagram per line, the response streams back one line with the violations of each diagram as soon as its analysis finishes
+ */
+public class AnalyzeBatchServlet extends Servlet {
+    private static final long serialVersionUID = 1L;
+    private final transient BatchAnalysisService batchService = BatchAnalysisService.fromConfiguration();
+
+    @Override
+    protected StreamingResult doSpecific(InputStream body, String name, HttpServletRequest request) {
+        boolean includeLabels = Boolean.parseBoolean(request.getParameter("labels"));
+        boolean skipAnnotations = "false".equals(request.getParameter("annotations"));
+        return outputStream -> batchService.analyze(body, outputStream, includeLabels, skipAnnotations);
+    }
+
+    @Override
+    protected boolean hasNamePrefix(HttpServletRequest request) {
+        return false;
+    }
+
+    @Override
+    protected String getResponseContentType(HttpServletRequest request) {
+        return "application/x-ndjson;charset=UTF-8";
+    }
+}
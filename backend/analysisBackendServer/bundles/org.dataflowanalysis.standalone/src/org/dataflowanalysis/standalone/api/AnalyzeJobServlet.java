@@ -0,0 +1,128 @@
+package org.dataflowanalysis.standalone.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import org.dataflowanalysis.standalone.services.AnalysisJob;
+import org.dataflowanalysis.standalone.services.AnalysisJobService;
+import org.dataflowanalysis.standalone.services.AnalyzeService;
+import org.dataflowanalysis.standalone.services.Util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Asynchronous analysis.
+ * POST submits a model and returns the job id, GET with the parameter id returns the analyzed model once the job is done and DELETE cancels a job.
+ * GET waits up to the number of seconds given in the parameter wait for the job to finish, without blocking a server thread meanwhile
+ */
+public class AnalyzeJobServlet extends Servlet {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_WAIT_SECONDS = 30;
+    private static final Logger logger = Logger.getLogger(AnalyzeJobServlet.class);
+    private final AnalyzeService analysisService = new AnalyzeService();
+    private final AnalysisJobService jobService = AnalysisJobService.getInstance();
+
+    @Override
+    protected StreamingResult doSpecific(InputStream body, String name, HttpServletRequest request) {
+        var webEditorDfd = Util.deserializeJson(body);
+        String sessionId = AnalyzeServlet.getSessionId(request);
+        var job = jobService.submit(sessionId, name, () -> Util.serializeJson(analysisService.analyzeAnnotate(webEditorDfd, sessionId)));
+        String status = job.getStatusJson();
+        return outputStream -> outputStream.write(status.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var job = findJob(request, response);
+        if (job == null) {
+            return;
+        }
+        int waitSeconds = Math.min(parseWait(request.getParameter("wait")), MAX_WAIT_SECONDS);
+        if (job.getResult().isDone()) {
+            try {
+                writeResult(response, job, null, job.getResult().join());
+            } catch (CompletionException | CancellationException e) {
+                writeResult(response, job, e, null);
+            }
+            return;
+        }
+        if (waitSeconds == 0) {
+            writeResult(response, job, null, null);
+            return;
+        }
+
+        //Releases the request thread while waiting, the response is written by whichever thread completes the job or the timeout
+        var asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+        job.getResult().copy()
+            .completeOnTimeout(null, waitSeconds, TimeUnit.SECONDS)
+            .whenComplete((result, failure) -> {
+                try {
+                    writeResult((HttpServletResponse) asyncContext.getResponse(), job, failure, result);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not send the result of job " + job.getId(), e);
+                } finally {
+                    asyncContext.complete();
+                }
+            });
+    }
+
+    /**
+     * Writes the state of a job, its result if it finished successfully
+     * @param response Response to the request for the job
+     * @param job Requested job
+     * @param failure Reason why the job did not finish successfully, null if it succeeded or is still running
+     * @param result Result of the job, null if it is still running
+     * @throws IOException If writing the response fails
+     */
+    private void writeResult(HttpServletResponse response, AnalysisJob job, Throwable failure, String result) throws IOException {
+        var cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause == null && result == null) {
+            writeText(response, HttpServletResponse.SC_ACCEPTED, job.getStatusJson());
+        } else if (cause == null) {
+            writeText(response, HttpServletResponse.SC_OK, job.getName() + ":" + result);
+        } else if (cause instanceof IllegalArgumentException) {
+            writeText(response, HttpServletResponse.SC_BAD_REQUEST, cause.getMessage());
+        } else if (cause instanceof CancellationException) {
+            writeText(response, HttpServletResponse.SC_CONFLICT, cause.getMessage() == null ? "Analysis cancelled" : cause.getMessage());
+        } else {
+            writeText(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+        }
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var job = findJob(request, response);
+        if (job != null) {
+            job.cancel("Cancelled by client");
+            writeText(response, HttpServletResponse.SC_OK, job.getStatusJson());
+        }
+    }
+
+    private AnalysisJob findJob(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String id = request.getParameter("id");
+        var job = id == null ? null : jobService.getJob(id);
+        if (job == null) {
+            writeText(response, HttpServletResponse.SC_NOT_FOUND, "Unknown job: " + id);
+        }
+        return job;
+    }
+
+    private int parseWait(String wait) {
+        if (wait == null) {
+            return 0;
+        }
+        try {
+            return Math.max(Integer.parseInt(wait), 0);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -1,18 +1,46 @@
 package org.dataflowanalysis.standalone.api;
 
+import java.io.InputStream;
+
+import org.dataflowanalysis.standalone.services.AnalysisExecutor;
 import org.dataflowanalysis.standalone.services.AnalyzeService;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletRequest;
 
 public class AnalyzeServlet extends Servlet {
     private static final long serialVersionUID = 1L;
+    /**
+     * Header that identifies an editing session for incremental analysis
+     */
+    public static final String SESSION_HEADER = "X-Analysis-Session";
+    /**
+     * Query parameter selecting the response, {@code violations} returns a compact summary instead of the annotated model
+     */
+    public static final String RESPONSE_PARAMETER = "response";
     private final AnalyzeService analysisService = new AnalyzeService();
     
-    protected String doSpecific(String message, String name){
-        try {
-            return analysisService.analyzeAnnotate(message);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Json unparsable");
+    @Override
+    protected StreamingResult doSpecific(InputStream body, String name, HttpServletRequest request) {
+        var webEditorDfd = getRequestEncoding(request).read(body);
+        var encoding = getResponseEncoding(request);
+        if ("violations".equals(request.getParameter(RESPONSE_PARAMETER))) {
+            boolean includeLabels = Boolean.parseBoolean(request.getParameter("labels"));
+            boolean skipAnnotations = "false".equals(request.getParameter("annotations"));
+            var summary = AnalysisExecutor.getInstance().execute(() -> analysisService.summarize(webEditorDfd, includeLabels, skipAnnotations));
+            return outputStream -> encoding.write(summary, outputStream);
         }
+        String sessionId = getSessionId(request);
+        var result = AnalysisExecutor.getInstance().execute(() -> analysisService.analyzeAnnotate(webEditorDfd, sessionId));
+        return outputStream -> encoding.write(result, outputStream);
+    }
+    
+    @Override
+    protected String getResponseContentType(HttpServletRequest request) {
+        return getResponseEncoding(request).getContentType();
+    }
+    
+    static String getSessionId(HttpServletRequest request) {
+        String sessionId = request.getHeader(SESSION_HEADER);
+        return sessionId == null || sessionId.isBlank() ? null : sessionId;
     }
 }
@@ -0,0 +1,32 @@
+package org.dataflowanalysis.standalone.api;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream that counts the bytes written to the response
+ */
+class CountingOutputStream extends FilterOutputStream {
+    private long writtenBytes;
+
+    CountingOutputStream(OutputStream outputStream) {
+        super(outputStream);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        writtenBytes++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        out.write(buffer, offset, length);
+        writtenBytes += length;
+    }
+
+    long getWrittenBytes() {
+        return writtenBytes;
+    }
+}
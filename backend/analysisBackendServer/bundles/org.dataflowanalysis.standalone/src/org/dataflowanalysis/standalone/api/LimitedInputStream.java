@@ -0,0 +1,73 @@
+package org.dataflowanalysis.standalone.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream that fails once more than a maximum number of bytes was read, so request bodies without a Content-Length header are limited as well
+ */
+class LimitedInputStream extends FilterInputStream {
+    private final long maxBytes;
+    private long readBytes;
+    private boolean exceeded;
+
+    LimitedInputStream(InputStream inputStream, long maxBytes) {
+        super(inputStream);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int next = super.read();
+        if (next != -1) {
+            count(1);
+        }
+        return next;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long length) throws IOException {
+        long skipped = super.skip(length);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Returns the number of bytes read so far
+     * @return Number of read bytes
+     */
+    long getReadBytes() {
+        return readBytes;
+    }
+
+    /**
+     * Returns whether the stream was read beyond its limit
+     * @return True if the limit was exceeded
+     */
+    boolean isExceeded() {
+        return exceeded;
+    }
+
+    private void count(long bytes) throws IOException {
+        readBytes += bytes;
+        if (readBytes > maxBytes) {
+            exceeded = true;
+            throw new IOException("Request body exceeds " + maxBytes + " bytes");
+        }
+    }
+}
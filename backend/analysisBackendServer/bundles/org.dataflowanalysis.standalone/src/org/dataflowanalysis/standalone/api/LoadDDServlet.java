@@ -1,13 +1,29 @@
 package org.dataflowanalysis.standalone.api;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.dataflowanalysis.standalone.services.AnalysisExecutor;
 import org.dataflowanalysis.standalone.services.LoadDDService;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 public class LoadDDServlet extends Servlet {
     
     private static final long serialVersionUID = 1L;
     private final LoadDDService loadDDService = new LoadDDService();    
     
-    protected String doSpecific(String message, String name){
-        return loadDDService.safeLoadAndConvertDFDString(message, name);
+    @Override
+    protected StreamingResult doSpecific(InputStream body, String name, HttpServletRequest request) throws IOException {
+        String message = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        var result = AnalysisExecutor.getInstance().execute(() -> loadDDService.loadAndConvertDFDStored(message, name));
+        var encoding = getResponseEncoding(request);
+        return outputStream -> encoding.writeJson(result, outputStream);
+    }
+    
+    @Override
+    protected String getResponseContentType(HttpServletRequest request) {
+        return getResponseEncoding(request).getContentType();
     }
 }
@@ -1,13 +1,85 @@
 package org.dataflowanalysis.standalone.api;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.dataflowanalysis.standalone.services.AnalysisExecutor;
 import org.dataflowanalysis.standalone.services.LoadPCMService;
+import org.dataflowanalysis.standalone.services.PCMUpload;
+import org.dataflowanalysis.standalone.services.SizeLimitExceededException;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
 
 public class LoadPCMServlet extends Servlet {
     
     private static final long serialVersionUID = 1L;
+    private static final String MULTIPART_CONTENT_TYPE = "multipart/form-data";
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
     private final LoadPCMService loadPCMService = new LoadPCMService();
     
-    protected String doSpecific(String message, String name){
-        return loadPCMService.safeLoadAndConvertPCMString(message);
+    @Override
+    protected StreamingResult doSpecific(InputStream body, String name, HttpServletRequest request) throws IOException {
+        var result = isUpload(request) ? loadUpload(body, request) : loadMessage(body);
+        var encoding = getResponseEncoding(request);
+        return outputStream -> encoding.writeJson(result, outputStream);
+    }
+    
+    private ByteBuffer loadMessage(InputStream body) throws IOException {
+        String message = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        return AnalysisExecutor.getInstance().execute(() -> loadPCMService.loadAndConvertPCMStored(message));
+    }
+    
+    /**
+     * Streams the files of a multipart request or a zip archive into an upload folder and converts them.
+     * Multipart requests contain one part per file, named by its submitted file name; parts larger than the multipart threshold are buffered on disk by the server
+     * @param body Request body
+     * @param request Incoming request
+     * @return Serialized WebDFD
+     * @throws IOException If reading the body fails
+     */
+    private ByteBuffer loadUpload(InputStream body, HttpServletRequest request) throws IOException {
+        try (var upload = new PCMUpload(getMaxRequestBytes())) {
+            if (request.getContentType().startsWith(ZIP_CONTENT_TYPE)) {
+                upload.addArchive(body);
+            } else {
+                try {
+                    for (var part : request.getParts()) {
+                        String fileName = part.getSubmittedFileName();
+                        if (fileName == null) {
+                            continue;
+                        }
+                        try (var content = part.getInputStream()) {
+                            upload.addFile(fileName, content);
+                        } finally {
+                            part.delete();
+                        }
+                    }
+                } catch (ServletException e) {
+                    throw new IllegalArgumentException("Invalid multipart request");
+                } catch (IllegalStateException e) {
+                    //Thrown by the server if a part or the request exceeds the multipart limits
+                    throw new SizeLimitExceededException(e.getMessage());
+                }
+            }
+            return AnalysisExecutor.getInstance().execute(() -> loadPCMService.loadAndConvertPCMStored(upload));
+        }
+    }
+    
+    private static boolean isUpload(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && (contentType.startsWith(MULTIPART_CONTENT_TYPE) || contentType.startsWith(ZIP_CONTENT_TYPE));
+    }
+    
+    @Override
+    protected boolean hasNamePrefix(HttpServletRequest request) {
+        return !isUpload(request);
+    }
+    
+    @Override
+    protected String getResponseContentType(HttpServletRequest request) {
+        return getResponseEncoding(request).getContentType();
     }
 }
@@ -0,0 +1,23 @@
+package org.dataflowanalysis.standalone.api;
+
+import java.io.IOException;
+
+import org.dataflowanalysis.standalone.services.Metrics;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Exposes the {@link Metrics} of the backend in the Prometheus text format
+ */
+public class MetricsServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/plain;version=0.0.4;charset=UTF-8");
+        Metrics.write(response.getWriter());
+    }
+}
@@ -0,0 +1,24 @@
+package org.dataflowanalysis.standalone.api;
+
+import java.io.IOException;
+
+import org.dataflowanalysis.standalone.services.Warmup;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Readiness probe, answers with 503 until the {@link Warmup} finished
+ */
+public class ReadyServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean ready = Warmup.isReady();
+        response.setStatus(ready ? HttpServletResponse.SC_OK : HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(ready ? "Ready" : "Warming up");
+    }
+}
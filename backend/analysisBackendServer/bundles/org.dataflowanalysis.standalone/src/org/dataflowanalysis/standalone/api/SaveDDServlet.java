@@ -1,14 +1,23 @@
 package org.dataflowanalysis.standalone.api;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.dataflowanalysis.standalone.services.AnalysisExecutor;
 import org.dataflowanalysis.standalone.services.SaveDDService;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 
 public class SaveDDServlet extends Servlet {
     
     private static final long serialVersionUID = 1L;
     private final SaveDDService saveDDService = new SaveDDService();
     
-    protected String doSpecific(String message, String name){
-        return saveDDService.convertToDFDandStringify(message, name);
+    @Override
+    protected StreamingResult doSpecific(InputStream body, String name, HttpServletRequest request) {
+        var webEditorDfd = getRequestEncoding(request).read(body);
+        var result = AnalysisExecutor.getInstance().execute(() -> saveDDService.convertToDFDandStringify(webEditorDfd, name));
+        return outputStream -> outputStream.write(result.getBytes(StandardCharsets.UTF_8));
     }
 }
@@ -1,46 +1,241 @@
 package org.dataflowanalysis.standalone.api;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.stream.Collectors;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.dataflowanalysis.standalone.services.ConcurrencyLimiter;
+import org.dataflowanalysis.standalone.services.Configuration;
+import org.dataflowanalysis.standalone.services.Metrics;
+import org.dataflowanalysis.standalone.services.ModelEncoding;
+import org.dataflowanalysis.standalone.services.SizeLimitExceededException;
+
+import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 public abstract class Servlet extends HttpServlet{
     private static final long serialVersionUID = 1L;
+    /**
+     * Header that carries the name of the diagram. If it is present, the body only consists of the message and the response is not prefixed with the name
+     */
+    public static final String NAME_HEADER = "X-Diagram-Name";
+    private static final int MAX_NAME_LENGTH = 4096;
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private transient ConcurrencyLimiter limiter;
+    private transient Metrics.Histogram requestDuration;
+    private transient Metrics.Histogram requestSize;
+    private transient Metrics.Histogram responseSize;
+    private String endpoint;
+    private long maxRequestBytes;
+    private long retryAfterSeconds;
+    
+    @Override
+    public void init() throws ServletException {
+        endpoint = getEndpointName();
+        limiter = ConcurrencyLimiter.fromConfiguration(endpoint);
+        maxRequestBytes = ConcurrencyLimiter.getEndpointLong(endpoint, "maxRequestBytes", 256L * 1024 * 1024);
+        retryAfterSeconds = Configuration.getLong("dfa.limits.retryAfterSeconds", 5);
+        
+        var currentLimiter = limiter;
+        Metrics.gauge("dfa_requests_in_flight", "Number of requests that are processed", currentLimiter::getActive, "endpoint", endpoint);
+        Metrics.gauge("dfa_requests_queued", "Number of requests that wait for processing", currentLimiter::getQueued, "endpoint", endpoint);
+        requestDuration = Metrics.histogram("dfa_request_duration_seconds", "Duration of requests including waiting for admission", Metrics.DURATION_BUCKETS, "endpoint", endpoint);
+        requestSize = Metrics.histogram("dfa_request_bytes", "Size of request bodies", Metrics.SIZE_BUCKETS, "endpoint", endpoint);
+        responseSize = Metrics.histogram("dfa_response_bytes", "Size of response bodies", Metrics.SIZE_BUCKETS, "endpoint", endpoint);
+    }
     
     @Override    
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        String message = request.getReader()
-                .lines()
-                .collect(Collectors.joining(System.lineSeparator()));
+        long start = System.nanoTime();
+        try {
+            admitAndHandle(request, response);
+        } finally {
+            requestDuration.observeNanos(System.nanoTime() - start);
+            Metrics.counter("dfa_requests_total", "Number of requests by status", "endpoint", endpoint, "status", Integer.toString(response.getStatus())).increment();
+        }
+    }
+    
+    private void admitAndHandle(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            writeText(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request body exceeds " + maxRequestBytes + " bytes");
+            return;
+        }
+        
+        ConcurrencyLimiter.Admission admission;
+        try {
+            admission = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admission = ConcurrencyLimiter.Admission.TIMED_OUT;
+        }
+        if (admission == ConcurrencyLimiter.Admission.QUEUE_FULL) {
+            writeError(response, SC_TOO_MANY_REQUESTS, "Too many concurrent requests");
+            return;
+        }
+        if (admission == ConcurrencyLimiter.Admission.TIMED_OUT) {
+            writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server busy");
+            return;
+        }
         
-        String name = message.split(":")[0];
-        message = message.replaceFirst(name + ":", "");
-
         try {
-            var result = doSpecific(message, name);            
-            writeText(response, HttpServletResponse.SC_OK, name + ":" + result);
-        } catch (IllegalArgumentException e) {
-            writeText(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            handlePost(request, response);
+        } finally {
+            limiter.release();
+        }
+    }
+    
+    private void handlePost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var limitedBody = new LimitedInputStream(request.getInputStream(), maxRequestBytes);
+        InputStream body = new BufferedInputStream(limitedBody);
+        String headerName = request.getHeader(NAME_HEADER);
 
+        try {
+            String name = headerName != null ? headerName : hasNamePrefix(request) ? readName(body) : null;
+            var result = doSpecific(body, name, request);            
+            String contentType = getResponseContentType(request);
+            //Binary responses are never prefixed, the name is returned in the header instead
+            boolean namePrefix = headerName == null && name != null && !isBinary(contentType);
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            if (name != null && !namePrefix) {
+                response.setHeader(NAME_HEADER, name);
+            }
+            requestSize.observe(limitedBody.getReadBytes());
+            var outputStream = new CountingOutputStream(response.getOutputStream());
+            if (namePrefix) {
+                outputStream.write((name + ":").getBytes(StandardCharsets.UTF_8));
+            }
+            result.writeTo(outputStream);
+            responseSize.observe(outputStream.getWrittenBytes());
         } catch (Exception e) {
-            writeText(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+            if (limitedBody.isExceeded()) {
+                writeError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request body exceeds " + maxRequestBytes + " bytes");
+            } else if (e instanceof SizeLimitExceededException) {
+                writeError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+            } else if (e instanceof IllegalArgumentException) {
+                writeError(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            } else if (e instanceof RejectedExecutionException) {
+                writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+            } else {
+                writeError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+            }
+        }
+    }
+    
+    /**
+     * Name of the endpoint used for its limits, e.g. {@code analyze} for the {@link AnalyzeServlet}
+     * @return Name of the endpoint
+     */
+    protected String getEndpointName() {
+        String name = getClass().getSimpleName().replaceFirst("Servlet$", "");
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+    
+    /**
+     * Whether the body of a request starts with the diagram name if it is not sent in the header. If it returns false, the body is passed on unchanged
+     * and the response is not prefixed, e.g. for endpoints handling several diagrams at once or binary uploads
+     * @param request Incoming request
+     * @return True if the name is read from the body prefix
+     */
+    protected boolean hasNamePrefix(HttpServletRequest request) {
+        return true;
+    }
+
+    /**
+     * Maximum size of a request body of this endpoint, configured by {@code dfa.limits.<endpoint>.maxRequestBytes}
+     * @return Maximum size in bytes
+     */
+    protected long getMaxRequestBytes() {
+        return maxRequestBytes;
+    }
+    
+    /**
+     * Content type of successful responses
+     * @param request Incoming request
+     * @return Content type including the charset
+     */
+    protected String getResponseContentType(HttpServletRequest request) {
+        return "text/plain;charset=UTF-8";
+    }
+    
+    /**
+     * Encoding of a diagram in the request body, given by its Content-Type header
+     * @param request Incoming request
+     * @return Encoding of the request body
+     */
+    protected static ModelEncoding getRequestEncoding(HttpServletRequest request) {
+        return ModelEncoding.ofContentType(request.getContentType());
+    }
+    
+    /**
+     * Encoding of a diagram in the response, negotiated through the Accept header
+     * @param request Incoming request
+     * @return Encoding of the response body
+     */
+    protected static ModelEncoding getResponseEncoding(HttpServletRequest request) {
+        return ModelEncoding.ofAccept(request.getHeader("Accept"));
+    }
+    
+    private static boolean isBinary(String contentType) {
+        return contentType.startsWith(ModelEncoding.SMILE.getContentType());
+    }
+    
+    /**
+     * Reads the diagram name that prefixes the message and is terminated by the first colon
+     * @param body Request body, positioned at the start of the message afterwards
+     * @return Name of the diagram
+     * @throws IOException If reading the body fails
+     */
+    private String readName(InputStream body) throws IOException {
+        var name = new ByteArrayOutputStream();
+        int next;
+        while ((next = body.read()) != ':') {
+            if (next == -1 || name.size() >= MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Missing diagram name");
+            }
+            name.write(next);
         }
+        return name.toString(StandardCharsets.UTF_8);
     }
     
-    private void writeText(HttpServletResponse response, int status, String message) throws IOException {
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        if (response.isCommitted()) {
+            throw new IOException("Response failed after it was committed: " + message);
+        }
+        response.reset();
+        if (status == SC_TOO_MANY_REQUESTS || status == HttpServletResponse.SC_SERVICE_UNAVAILABLE) {
+            response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        }
+        writeText(response, status, message);
+    }
+    
+    protected void writeText(HttpServletResponse response, int status, String message) throws IOException {
         response.setStatus(status);
         response.setContentType("text/plain;charset=UTF-8");
         response.getWriter().write(message);
     }
     
     /**
-     * Servlet specific activities
-     * @param message Incoming message content 
+     * Servlet specific activities on the streamed request body
+     * @param body Incoming message content without the name prefix
      * @param name Name of the diagram
-     * @return result
+     * @param request Incoming request
+     * @return result that is written to the response once the request was handled successfully
+     * @throws IOException If reading the body fails
      */
-    protected abstract String doSpecific(String message, String name);
+    protected abstract StreamingResult doSpecific(InputStream body, String name, HttpServletRequest request) throws IOException;
+
+    /**
+     * Result of a servlet that is written directly into the response stream
+     */
+    @FunctionalInterface
+    protected interface StreamingResult {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
 }
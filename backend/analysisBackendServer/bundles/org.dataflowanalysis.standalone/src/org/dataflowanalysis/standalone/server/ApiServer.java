@@ -1,28 +1,127 @@
 package org.dataflowanalysis.standalone.server;
 
-import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.time.Duration;
 
+import org.apache.log4j.Logger;
+import org.dataflowanalysis.standalone.api.AnalysisSocket;
+import org.dataflowanalysis.standalone.api.AnalyzeBatchServlet;
+import org.dataflowanalysis.standalone.api.AnalyzeJobServlet;
 import org.dataflowanalysis.standalone.api.AnalyzeServlet;
 import org.dataflowanalysis.standalone.api.LoadDDServlet;
 import org.dataflowanalysis.standalone.api.LoadPCMServlet;
+import org.dataflowanalysis.standalone.api.HealthServlet;
+import org.dataflowanalysis.standalone.api.MetricsServlet;
+import org.dataflowanalysis.standalone.api.ReadyServlet;
 import org.dataflowanalysis.standalone.api.SaveDDServlet;
+import org.dataflowanalysis.standalone.services.ConcurrencyLimiter;
+import org.dataflowanalysis.standalone.services.Configuration;
+import org.dataflowanalysis.standalone.services.Warmup;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.websocket.server.config.JettyWebSocketServletContainerInitializer;
+
+import jakarta.servlet.MultipartConfigElement;
 
 public class ApiServer {
+    private static final Logger logger = Logger.getLogger(ApiServer.class);
+
     public static void start() throws Exception {
-        Server server = new Server(new InetSocketAddress("localhost", 3000));
+        start(ServerConfig.fromConfiguration());
+    }
+
+    public static void start(ServerConfig config) throws Exception {
+        QueuedThreadPool threadPool = new QueuedThreadPool(config.maxThreads(), config.minThreads(), config.threadIdleTimeoutMillis());
+        threadPool.setName("api");
+        if (config.virtualThreads()) {
+            if (VirtualThreads.areSupported()) {
+                threadPool.setVirtualThreadsExecutor(VirtualThreads.getDefaultVirtualThreadsExecutor());
+            } else {
+                logger.warn("Virtual threads are not supported by this Java runtime, requests are handled on platform threads");
+            }
+        }
+
+        Server server = new Server(threadPool);
+        ServerConnector connector = new ServerConnector(server);
+        connector.setHost(config.host());
+        connector.setPort(config.port());
+        connector.setAcceptQueueSize(config.acceptQueueSize());
+        connector.setIdleTimeout(config.idleTimeoutMillis());
+        server.addConnector(connector);
 
         ServletContextHandler context = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
         context.setContextPath("/");
 
         context.addServlet(AnalyzeServlet.class, "/api/analyze");
+        context.addServlet(AnalyzeJobServlet.class, "/api/analyze/jobs").setAsyncSupported(true);
+        context.addServlet(AnalyzeBatchServlet.class, "/api/analyze/batch");
         context.addServlet(LoadDDServlet.class, "/api/loadDD");
-        context.addServlet(LoadPCMServlet.class, "/api/loadPCM");
+        context.addServlet(LoadPCMServlet.class, "/api/loadPCM").getRegistration().setMultipartConfig(createUploadConfig("loadPCM"));
         context.addServlet(SaveDDServlet.class, "/api/saveDD");        
+        context.addServlet(MetricsServlet.class, "/api/metrics");
+        context.addServlet(HealthServlet.class, "/api/health");
+        context.addServlet(ReadyServlet.class, "/api/ready");
 
-        server.setHandler(context);
+        JettyWebSocketServletContainerInitializer.configure(context, (servletContext, container) -> {
+            container.setMaxTextMessageSize(Configuration.getLong("dfa.websocket.maxMessageBytes", 64L * 1024 * 1024));
+            container.setIdleTimeout(Duration.ofSeconds(Configuration.getLong("dfa.websocket.idleTimeoutSeconds", 1800)));
+            container.addMapping("/api/analyze/ws", (request, response) -> new AnalysisSocket());
+        });
+
+        if (config.compression()) {
+            GzipHandler gzipHandler = new GzipHandler();
+            gzipHandler.setMinGzipSize(config.compressionMinBytes());
+            gzipHandler.setIncludedMethods("GET", "POST");
+            //Batch results are streamed line by line, buffering them for compression would delay them until the batch is done
+            gzipHandler.addExcludedPaths("/api/analyze/batch");
+            //Inflates request bodies sent with Content-Encoding: gzip, the request size limits apply to the inflated body
+            gzipHandler.setInflateBufferSize(8192);
+            gzipHandler.setHandler(context);
+            server.setHandler(gzipHandler);
+        } else {
+            server.setHandler(context);
+        }
         server.start();
+        startWarmup(server);
         server.join();
     }
+
+    /**
+     * Creates the multipart configuration of an upload endpoint. Parts larger than {@code dfa.upload.memoryThresholdBytes} are buffered in
+     * {@code dfa.upload.directory} instead of memory, the request is limited by the maximum request size of the endpoint
+     * @param endpoint Name of the endpoint
+     * @return Multipart configuration
+     */
+    private static MultipartConfigElement createUploadConfig(String endpoint) {
+        long maxRequestBytes = ConcurrencyLimiter.getEndpointLong(endpoint, "maxRequestBytes", 256L * 1024 * 1024);
+        String directory = Configuration.getString("dfa.upload.directory", Paths.get(System.getProperty("java.io.tmpdir")).toString());
+        int memoryThreshold = Configuration.getInt("dfa.upload.memoryThresholdBytes", 1024 * 1024);
+        return new MultipartConfigElement(directory, maxRequestBytes, maxRequestBytes, memoryThreshold);
+    }
+
+    /**
+     * Warms up the backend after the server started, so the health endpoint answers immediately while the readiness endpoint waits for the warm-up.
+     * With {@code dfa.warmup.exit} the server stops after the warm-up, e.g. for a training run that records a class data sharing archive
+     * @param server Started server
+     */
+    private static void startWarmup(Server server) {
+        var warmup = new Thread(() -> {
+            Warmup.run();
+            if (Configuration.getBoolean("dfa.warmup.exit", false)) {
+                logger.info("Stopping after warm-up");
+                try {
+                    server.stop();
+                } catch (Exception e) {
+                    logger.warn("Unable to stop the server", e);
+                }
+                System.exit(0);
+            }
+        }, "warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
 }
@@ -0,0 +1,32 @@
+package org.dataflowanalysis.standalone.server;
+
+import org.dataflowanalysis.standalone.services.Configuration;
+
+/**
+ * Network and thread settings of the {@link ApiServer}
+ * @param host Address the server binds to
+ * @param port Port the server listens on
+ * @param minThreads Minimum number of request threads
+ * @param maxThreads Maximum number of request threads
+ * @param threadIdleTimeoutMillis Time after which an idle request thread above the minimum is stopped
+ * @param acceptQueueSize Number of connections the operating system queues before they are accepted
+ * @param idleTimeoutMillis Time after which an idle connection is closed
+ * @param virtualThreads Whether requests are handled on virtual threads, which requires Java 21
+ * @param compression Whether responses are gzip compressed for clients accepting it and gzip compressed requests are inflated
+ * @param compressionMinBytes Minimum size of a response to be compressed
+ */
+public record ServerConfig(String host, int port, int minThreads, int maxThreads, int threadIdleTimeoutMillis, int acceptQueueSize, long idleTimeoutMillis,
+        boolean virtualThreads, boolean compression, int compressionMinBytes) {
+
+    /**
+     * Reads the server settings from the {@link Configuration}
+     * @return Configured server settings
+     */
+    public static ServerConfig fromConfiguration() {
+        return new ServerConfig(Configuration.getString("dfa.server.host", "localhost"), Configuration.getInt("dfa.server.port", 3000),
+                Configuration.getInt("dfa.server.minThreads", 8), Configuration.getInt("dfa.server.maxThreads", 200),
+                Configuration.getInt("dfa.server.threadIdleTimeoutMillis", 60000), Configuration.getInt("dfa.server.acceptQueueSize", 0),
+                Configuration.getLong("dfa.server.idleTimeoutMillis", 30000), Configuration.getBoolean("dfa.server.virtualThreads", false),
+                Configuration.getBoolean("dfa.server.compression", true), Configuration.getInt("dfa.server.compressionMinBytes", 1024));
+    }
+}
@@ -0,0 +1,122 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for CPU heavy work, shared by synchronous requests, asynchronous analysis jobs and batch analyses so that their number of threads
+ * together is bounded by a single budget.
+ * If request handling runs on virtual threads, analyses and conversions of synchronous requests are moved to the platform threads of the executor as well,
+ * so requests waiting for I/O do not compete with them
+ */
+public class AnalysisExecutor {
+    private static AnalysisExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+    private final boolean offload;
+
+    /**
+     * Creates a new executor
+     * @param threads Number of tasks that run in parallel
+     * @param queueSize Number of tasks that may wait for execution
+     * @param offload Whether {@link #execute(Supplier)} runs tasks on the executor, otherwise they run on the calling thread
+     */
+    public AnalysisExecutor(int threads, int queueSize, boolean offload) {
+        var threadCount = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            var thread = new Thread(runnable, "analysis-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.offload = offload;
+    }
+
+    /**
+     * Returns the number of threads for CPU heavy work, configured by {@code dfa.analysis.threads}. It is the default for every other setting that
+     * controls how many analyses run in parallel
+     * @return Number of analysis threads
+     */
+    public static int getConfiguredThreads() {
+        return Configuration.getInt("dfa.analysis.threads", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the executor shared by all endpoints. Synchronous tasks are only moved to its threads if {@code dfa.analysis.offload} is set, which
+     * defaults to {@code dfa.server.virtualThreads}
+     * @return Shared executor
+     */
+    public static synchronized AnalysisExecutor getInstance() {
+        if (instance == null) {
+            boolean offload = Configuration.getBoolean("dfa.analysis.offload", Configuration.getBoolean("dfa.server.virtualThreads", false));
+            instance = new AnalysisExecutor(getConfiguredThreads(), Configuration.getInt("dfa.analysis.queueSize", 64), offload);
+            var executor = instance;
+            Metrics.gauge("dfa_executor_active", "Number of running tasks", executor::getActiveTasks, "executor", "analysis");
+            Metrics.gauge("dfa_executor_queued", "Number of tasks waiting for execution", executor::getQueuedTasks, "executor", "analysis");
+        }
+        return instance;
+    }
+
+    /**
+     * Executes a task and waits for its result
+     * @param <T> Type of the result
+     * @param task Task to execute
+     * @return Result of the task
+     * @throws RejectedExecutionException If too many tasks are waiting for execution
+     */
+    public <T> T execute(Supplier<T> task) {
+        if (!offload) {
+            return task.get();
+        }
+        var future = executor.submit(task::get);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the analysis", e);
+        }
+    }
+
+    /**
+     * Submits a task without waiting for its result, e.g. an asynchronous analysis
+     * @param <T> Type of the result
+     * @param task Task to execute
+     * @return Future result of the task
+     * @throws RejectedExecutionException If too many tasks are waiting for execution
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * Returns the number of tasks that are currently executed on the separate threads
+     * @return Number of running tasks
+     */
+    public int getActiveTasks() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Returns the number of tasks that wait for execution
+     * @return Number of queued tasks
+     */
+    public int getQueuedTasks() {
+        return executor.getQueue().size();
+    }
+}
@@ -0,0 +1,106 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Analysis that is executed asynchronously by the {@link AnalysisJobService}
+ */
+public class AnalysisJob {
+    public enum Status {
+        PENDING, RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String key;
+    private final String name;
+    private final CompletableFuture<String> result = new CompletableFuture<>();
+    private volatile Future<?> task;
+    private volatile boolean running;
+    private volatile long finishedAt;
+
+    AnalysisJob(String key, String name) {
+        this.key = key;
+        this.name = name;
+        result.whenComplete((value, error) -> finishedAt = System.nanoTime());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the key of the job. A newer job with the same key supersedes this job
+     * @return Key of the job or null if the job cannot be superseded
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the name of the analyzed diagram
+     * @return Name of the diagram
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the result of the analysis, which completes with the serialized analyzed model
+     * @return Future result
+     */
+    public CompletableFuture<String> getResult() {
+        return result;
+    }
+
+    public Status getStatus() {
+        if (!result.isDone()) {
+            return running ? Status.RUNNING : Status.PENDING;
+        }
+        if (result.isCancelled()) {
+            return Status.CANCELLED;
+        }
+        return result.isCompletedExceptionally() ? Status.FAILED : Status.DONE;
+    }
+
+    /**
+     * Describes the state of the job as Json
+     * @return Serialized job status
+     */
+    public String getStatusJson() {
+        var status = Util.objectMapper.createObjectNode();
+        status.put("jobId", id);
+        status.put("status", getStatus().name());
+        try {
+            return Util.objectMapper.writeValueAsString(status);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Cancels the job. A job that is still queued is never started, the result of a running job is discarded
+     * @param reason Reason for the cancellation
+     */
+    public void cancel(String reason) {
+        if (result.completeExceptionally(new CancellationException(reason)) && task != null) {
+            task.cancel(true);
+        }
+    }
+
+    void setTask(Future<?> task) {
+        this.task = task;
+    }
+
+    void setRunning() {
+        running = true;
+    }
+
+    boolean isExpired(long now, long retentionNanos) {
+        return finishedAt != 0 && now - finishedAt > retentionNanos;
+    }
+}
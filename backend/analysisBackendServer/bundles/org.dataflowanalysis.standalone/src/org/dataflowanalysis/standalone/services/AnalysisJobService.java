@@ -0,0 +1,109 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Executes analyses asynchronously on the {@link AnalysisExecutor}.
+ * Submitting a job cancels all unfinished jobs with the same key, so only the newest analysis of an editing session is computed
+ */
+public class AnalysisJobService {
+    private static final Logger logger = Logger.getLogger(AnalysisJobService.class);
+    private static AnalysisJobService instance;
+
+    private final AnalysisExecutor executor;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, AnalysisJob> latestJobs = new ConcurrentHashMap<>();
+    private final long retentionNanos;
+
+    /**
+     * Creates a new job service
+     * @param executor Executor that runs the jobs, its queue bounds the number of jobs waiting for execution
+     * @param retentionSeconds Time a finished job can still be queried
+     */
+    public AnalysisJobService(AnalysisExecutor executor, long retentionSeconds) {
+        this.executor = executor;
+        this.retentionNanos = TimeUnit.SECONDS.toNanos(retentionSeconds);
+    }
+
+    /**
+     * Returns the job service shared by all endpoints
+     * @return Shared job service
+     */
+    public static synchronized AnalysisJobService getInstance() {
+        if (instance == null) {
+            instance = new AnalysisJobService(AnalysisExecutor.getInstance(), Configuration.getLong("dfa.jobs.retentionSeconds", 300));
+            Metrics.gauge("dfa_jobs_retained", "Number of asynchronous analyses whose status can be queried", instance.jobs::size);
+        }
+        return instance;
+    }
+
+    /**
+     * Submits an analysis
+     * @param key Key of the job, e.g. the editing session. Unfinished jobs with the same key are cancelled. May be null
+     * @param name Name of the analyzed diagram
+     * @param analysis Analysis that returns the serialized analyzed model
+     * @return Submitted job
+     * @throws RejectedExecutionException If too many jobs are waiting for execution
+     */
+    public AnalysisJob submit(String key, String name, Callable<String> analysis) {
+        removeExpiredJobs();
+        var job = new AnalysisJob(key, name);
+        if (key != null) {
+            var previous = latestJobs.put(key, job);
+            if (previous != null) {
+                previous.cancel("Superseded by job " + job.getId());
+            }
+        }
+        jobs.put(job.getId(), job);
+        try {
+            job.setTask(executor.submit(() -> {
+                run(job, analysis);
+                return null;
+            }));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            if (key != null) {
+                latestJobs.remove(key, job);
+            }
+            throw new RejectedExecutionException("Too many pending analyses", e);
+        }
+        return job;
+    }
+
+    /**
+     * Looks up a job
+     * @param id Id of the job
+     * @return Job or null if there is no job with the id or it already expired
+     */
+    public AnalysisJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    private void run(AnalysisJob job, Callable<String> analysis) {
+        if (job.getResult().isDone()) {
+            return;
+        }
+        job.setRunning();
+        try {
+            job.getResult().complete(analysis.call());
+        } catch (Exception e) {
+            logger.debug("Analysis job " + job.getId() + " failed", e);
+            job.getResult().completeExceptionally(e);
+        } finally {
+            if (job.getKey() != null) {
+                latestJobs.remove(job.getKey(), job);
+            }
+        }
+    }
+
+    private void removeExpiredJobs() {
+        long now = System.nanoTime();
+        jobs.values().removeIf(job -> job.isExpired(now, retentionNanos));
+    }
+}
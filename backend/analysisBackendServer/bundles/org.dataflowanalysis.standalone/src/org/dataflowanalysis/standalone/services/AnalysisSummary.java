@@ -0,0 +1,15 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Compact result of an analysis that only contains the violations instead of the annotated model
+ * @param violations Violating nodes in model order
+ * @param labels Labels propagated to the outgoing data of each node by node id, null if they were not requested
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AnalysisSummary(List<Violation> violations, Map<String, List<String>> labels) {
+}
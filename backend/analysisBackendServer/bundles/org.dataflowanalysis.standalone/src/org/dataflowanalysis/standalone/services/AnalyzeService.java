@@ -1,12 +1,39 @@
 package org.dataflowanalysis.standalone.services;
 
-import org.dataflowanalysis.converter.dfd2web.DFD2WebConverter;
-import org.dataflowanalysis.converter.web2dfd.Web2DFDConverter;
-import org.dataflowanalysis.converter.web2dfd.WebEditorConverterModel;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.dataflowanalysis.converter.web2dfd.model.Annotation;
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 public class AnalyzeService {
+    /**
+     * Analysis results of previously analyzed models, keyed by the canonical hash of the model
+     */
+    private static final BoundedCache<String, FlowGraphAnalysis.Result> resultCache = new BoundedCache<>(
+            Configuration.getInt("dfa.analysisCache.maxEntries", 256),
+            Configuration.getLong("dfa.analysisCache.maxBytes", 64L * 1024 * 1024),
+            Configuration.getLong("dfa.analysisCache.ttlSeconds", 600));
+
+    /**
+     * Analysis of the flow graphs of a model, evaluating the flow graphs of large models in parallel if enabled
+     */
+    private static final FlowGraphAnalysis flowGraphAnalysis = Configuration.getBoolean("dfa.parallel.enabled", false)
+            ? new FlowGraphAnalysis(new ForkJoinPool(Configuration.getInt("dfa.parallel.parallelism", AnalysisExecutor.getConfiguredThreads())),
+                    Configuration.getInt("dfa.parallel.minNodes", 200))
+            : new FlowGraphAnalysis();
+
+    private static final IncrementalAnalysis incrementalAnalysis = new IncrementalAnalysis(
+            Configuration.getInt("dfa.incremental.maxSessions", 64),
+            Configuration.getLong("dfa.incremental.ttlSeconds", 1800));
+
+    static {
+        Metrics.registerCache("analysis", resultCache::getStatistics);
+    }
+
     /**
      * Analyzes a Model in WebEditor Json Representation and returns the analyzed Model
      * @param webEditorDfd Model to be analyzed
@@ -14,26 +41,199 @@ public class AnalyzeService {
      * @throws JsonProcessingException 
      */
     public String analyzeAnnotate(String diagramMessage) throws JsonProcessingException {   
+        return analyzeAnnotate(diagramMessage, null);
+    }
+
+    /**
+     * Analyzes a Model in WebEditor Json Representation and returns the analyzed Model.
+     * If a session is given, only the parts of the model that changed since the previous analysis of the session are analyzed again
+     * @param diagramMessage Model to be analyzed
+     * @param sessionId Id of the editing session or null for a stateless analysis
+     * @return Analyzed Model
+     * @throws JsonProcessingException
+     */
+    public String analyzeAnnotate(String diagramMessage, String sessionId) throws JsonProcessingException {
         var webEditorDfd = Util.deserializeJson(diagramMessage);
-        
-        var webEditorConverter = new Web2DFDConverter();
-        var dd = webEditorConverter.convert(new WebEditorConverterModel(webEditorDfd));
-        var dfdConverter = new DFD2WebConverter();
-        if (webEditorDfd.constraints() != null && !webEditorDfd.constraints().isEmpty()) {                  
-            var constraints = Util.parseConstraints(webEditorDfd);
-            dfdConverter.setConstraints(constraints);
+        return Util.serializeJson(analyzeAnnotate(webEditorDfd, sessionId));
+    }
+
+    /**
+     * Analyzes a deserialized Model and adds the analysis results as annotations to it
+     * @param webEditorDfd Model to be analyzed, is modified in place
+     * @param sessionId Id of the editing session or null for a stateless analysis
+     * @return Analyzed Model
+     */
+    public WebEditorDfd analyzeAnnotate(WebEditorDfd webEditorDfd, String sessionId) {
+        var annotations = analyze(webEditorDfd, sessionId).annotations();
+        return Metrics.timeStage("merge", () -> mergeAnnotations(webEditorDfd, annotations));
+    }
+
+    /**
+     * Analyzes a deserialized Model without adding the results to it
+     * @param webEditorDfd Model to be analyzed, is not modified
+     * @param sessionId Id of the editing session or null for a stateless analysis
+     * @return Annotations created by the analysis by node id, nodes without an entry are not part of any transpose flow graph
+     */
+    public Map<String, List<Annotation>> getAnnotations(WebEditorDfd webEditorDfd, String sessionId) {
+        return analyze(webEditorDfd, sessionId).annotations();
+    }
+
+    /**
+     * Analyzes a deserialized Model and only reports the nodes that violate a constraint, without adding annotations to the model
+     * @param webEditorDfd Model to be analyzed, is not modified
+     * @return Violating nodes in model order
+     */
+    public List<Violation> findViolations(WebEditorDfd webEditorDfd) {
+        return Violation.collect(webEditorDfd, analyze(webEditorDfd, null).violations());
+    }
+
+    /**
+     * Analyzes a deserialized Model and returns a compact summary instead of the annotated model
+     * @param webEditorDfd Model to be analyzed, is not modified
+     * @param includeLabels Whether the propagated labels of all nodes are included
+     * @param skipAnnotations Whether the constraints are evaluated directly on the flow graphs without generating annotations. Otherwise the violations are
+     * taken from the full analysis result, which is cached. Labels are only available from the direct evaluation
+     * @return Violations and, if requested, propagated labels
+     */
+    public AnalysisSummary summarize(WebEditorDfd webEditorDfd, boolean includeLabels, boolean skipAnnotations) {
+        if (!includeLabels && !skipAnnotations) {
+            return new AnalysisSummary(findViolations(webEditorDfd), null);
         }
-        var newJson = dfdConverter.convert(dd).getModel();
-        
-        for (var child : newJson.model().children()) {
-            if (child.type().startsWith("node") && child.annotations() != null) {
-                var oldNode = webEditorDfd.model().children().stream().filter(node -> node.id().equals(child.id())).findAny().orElseThrow();
-                //Necessary if ugly if we want to preserve custom annotations
-                var annotationsToRemove = oldNode.annotations().stream().filter(a -> a.message().startsWith("Propagated") || a.message().startsWith("Incoming") || a.message().startsWith("Constraint")).toList();              
-                oldNode.annotations().removeAll(annotationsToRemove);
-                oldNode.annotations().addAll(child.annotations());
+        recordModelSize(webEditorDfd);
+        countAnalysis("summary");
+        return flowGraphAnalysis.summarize(webEditorDfd, includeLabels);
+    }
+
+    /**
+     * Returns the analysis result of a model from the cache or by analyzing it
+     * @param webEditorDfd Model to be analyzed
+     * @param sessionId Id of the editing session or null for a stateless analysis
+     * @return Annotations and violated constraints by node id
+     */
+    private FlowGraphAnalysis.Result analyze(WebEditorDfd webEditorDfd, String sessionId) {
+        recordModelSize(webEditorDfd);
+        var key = Metrics.timeStage("canonical_hash", () -> CanonicalHash.of(webEditorDfd));
+        var result = resultCache.get(key.hash());
+        if (result == null) {
+            if (sessionId == null) {
+                countAnalysis("full");
+                result = flowGraphAnalysis.analyze(webEditorDfd, null);
+            } else {
+                countAnalysis("incremental");
+                result = incrementalAnalysis.analyze(sessionId, webEditorDfd, flowGraphAnalysis);
             }
-        }       
-        return Util.serializeJson(webEditorDfd);
+            resultCache.put(key.hash(), result, estimateSize(result));
+        } else {
+            countAnalysis("cached");
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the memory used by a cached analysis result, counting two bytes per character and a fixed overhead per object
+     * @param result Analysis result
+     * @return Estimated size in bytes
+     */
+    static long estimateSize(FlowGraphAnalysis.Result result) {
+        long size = 0;
+        for (var entry : result.annotations().entrySet()) {
+            size += 64 + 2L * entry.getKey().length();
+            for (var annotation : entry.getValue()) {
+                size += 64 + 2L * (length(annotation.message()) + length(annotation.icon()) + length(annotation.color()));
+            }
+        }
+        for (var entry : result.violations().entrySet()) {
+            size += 64 + 2L * entry.getKey().length();
+            for (var constraint : entry.getValue()) {
+                size += 64 + 2L * constraint.length();
+            }
+        }
+        return size;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Replaces the generated annotations of all nodes by the analysis results, keeping annotations that were not created by the analysis
+     * @param webEditorDfd Model whose annotations are replaced, is modified in place
+     * @param annotations Annotations by node id, nodes without an entry are not part of any transpose flow graph
+     * @return Model with the new annotations
+     */
+    static WebEditorDfd mergeAnnotations(WebEditorDfd webEditorDfd, Map<String, List<Annotation>> annotations) {
+        for (var node : webEditorDfd.model().children()) {
+            if (!node.type().startsWith("node") || node.annotations() == null) {
+                continue;
+            }
+            node.annotations().removeIf(AnalyzeService::isGenerated);
+            node.annotations().addAll(annotations.getOrDefault(node.id(), List.of()));
+        }
+        return webEditorDfd;
+    }
+
+    /**
+     * Decides whether an annotation was created by the analysis.
+     * The analysis assigns its annotations to the transpose flow graph they belong to, annotations without one are only treated as generated if they use
+     * the messages of older analysis versions
+     * @param annotation Annotation of a node
+     * @return True if the annotation is replaced by a new analysis
+     */
+    static boolean isGenerated(Annotation annotation) {
+        if (annotation.tfg() != null) {
+            return true;
+        }
+        String message = annotation.message();
+        return message != null && (message.startsWith("Propagated") || message.startsWith("Incoming") || message.startsWith("Constraint"));
+    }
+
+    /**
+     * Discards the previous results of an editing session, its next analysis is a full one
+     * @param sessionId Id of the editing session
+     */
+    public void closeSession(String sessionId) {
+        incrementalAnalysis.remove(sessionId);
+    }
+
+    /**
+     * Returns the counters of the analysis result cache
+     * @return Cache statistics
+     */
+    public static BoundedCache.CacheStatistics getCacheStatistics() {
+        return resultCache.getStatistics();
+    }
+
+    /**
+     * Runs the analysis on a model without modifying it, in parallel if enabled
+     * @param webEditorDfd Model to be analyzed
+     * @return Annotations by node id
+     */
+    Map<String, List<Annotation>> analyzeAnnotations(WebEditorDfd webEditorDfd) {
+        return flowGraphAnalysis.analyze(webEditorDfd, null).annotations();
+    }
+
+    private static void countAnalysis(String mode) {
+        Metrics.counter("dfa_analyses_total", "Number of analysis requests by how they were answered", "mode", mode).increment();
+    }
+
+    /**
+     * Records the number of nodes, flows and labels of an analyzed model
+     * @param webEditorDfd Model to be analyzed
+     */
+    private static void recordModelSize(WebEditorDfd webEditorDfd) {
+        int nodes = 0;
+        int flows = 0;
+        int labels = 0;
+        for (var child : webEditorDfd.model().children()) {
+            if (child.type().startsWith("node")) {
+                nodes++;
+                labels += child.labels() == null ? 0 : child.labels().size();
+            } else if (child.type().startsWith("edge")) {
+                flows++;
+            }
+        }
+        Metrics.histogram("dfa_model_nodes", "Number of nodes of analyzed models", Metrics.COUNT_BUCKETS).observe(nodes);
+        Metrics.histogram("dfa_model_flows", "Number of flows of analyzed models", Metrics.COUNT_BUCKETS).observe(flows);
+        Metrics.histogram("dfa_model_labels", "Number of node labels of analyzed models", Metrics.COUNT_BUCKETS).observe(labels);
     }
 }
@@ -0,0 +1,177 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Analyzes a stream of diagrams in newline delimited Json and streams back the violations of each diagram as soon as its analysis finishes.
+ * Every input line is either a diagram or an object {@code {"name": ..., "model": <diagram>}}. Every output line is
+ * {@code {"index": ..., "name": ..., "violations": [...]}}, optionally with the propagated {@code "labels"}, or {@code {"index": ..., "name": ..., "error": ...}}, in the order the analyses finish
+ */
+public class BatchAnalysisService {
+    private final AnalyzeService analyzeService = new AnalyzeService();
+    private final AnalysisExecutor executor;
+    private final int parallelism;
+
+    /**
+     * Creates a new batch analysis
+     * @param executor Executor that analyzes the diagrams, shared with other analyses
+     * @param parallelism Number of diagrams of a batch that are analyzed in parallel
+     */
+    public BatchAnalysisService(AnalysisExecutor executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Creates a batch analysis on the shared {@link AnalysisExecutor} whose parallelism is given by {@code dfa.batch.parallelism}
+     * @return Configured batch analysis
+     */
+    public static BatchAnalysisService fromConfiguration() {
+        return new BatchAnalysisService(AnalysisExecutor.getInstance(), Configuration.getInt("dfa.batch.parallelism", AnalysisExecutor.getConfiguredThreads()));
+    }
+
+    /**
+     * Analyzes all diagrams of the input. Only a bounded number of diagrams is read ahead of the running analyses, so the input is never buffered completely.
+     * The diagrams run on the shared executor; if its queue is full, the diagram is analyzed on the calling thread, which slows down reading the input
+     * @param input Diagrams in newline delimited Json
+     * @param output Target of the results in newline delimited Json, every line is flushed when it is written
+     * @param includeLabels Whether the propagated labels of all nodes are included in the results
+     * @param skipAnnotations Whether the constraints are evaluated without generating annotations, see {@link AnalyzeService#summarize(WebEditorDfd, boolean, boolean)}
+     * @return Number of analyzed, violating and failed diagrams
+     * @throws IOException If reading the input or writing a result fails
+     */
+    public BatchSummary analyze(InputStream input, OutputStream output, boolean includeLabels, boolean skipAnnotations) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        var writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        int maxReadAhead = 2 * parallelism;
+        var readAhead = new Semaphore(maxReadAhead);
+        var aborted = new AtomicBoolean();
+        var writeFailure = new AtomicReference<IOException>();
+        var violating = new AtomicInteger();
+        var failed = new AtomicInteger();
+        int index = 0;
+
+        try {
+            String line;
+            while (writeFailure.get() == null && (line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                readAhead.acquire();
+                int diagramIndex = index++;
+                String diagram = line;
+                Runnable analysis = () -> {
+                    try {
+                        if (aborted.get() || writeFailure.get() != null) {
+                            return;
+                        }
+                        var result = analyzeDiagram(diagramIndex, diagram, includeLabels, skipAnnotations);
+                        if (result.has("error")) {
+                            failed.incrementAndGet();
+                        } else if (!result.get("violations").isEmpty()) {
+                            violating.incrementAndGet();
+                        }
+                        writeLine(writer, result, writeFailure);
+                    } finally {
+                        readAhead.release();
+                    }
+                };
+                try {
+                    executor.submit(Executors.callable(analysis));
+                } catch (RejectedExecutionException e) {
+                    analysis.run();
+                }
+            }
+            //All permits are back once every analysis of this batch finished
+            readAhead.acquire(maxReadAhead);
+        } catch (IOException e) {
+            aborted.set(true);
+            throw e;
+        } catch (InterruptedException e) {
+            aborted.set(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch analysis interrupted");
+        }
+
+        if (writeFailure.get() != null) {
+            throw writeFailure.get();
+        }
+        return new BatchSummary(index, violating.get(), failed.get());
+    }
+
+    private ObjectNode analyzeDiagram(int index, String line, boolean includeLabels, boolean skipAnnotations) {
+        var result = Util.objectMapper.createObjectNode();
+        result.put("index", index);
+        result.put("name", "#" + index);
+        WebEditorDfd webEditorDfd;
+        try {
+            JsonNode tree = Util.objectMapper.readTree(line);
+            boolean wrapped = tree.path("model").has("model");
+            if (wrapped && tree.hasNonNull("name")) {
+                result.put("name", tree.get("name").asText());
+            }
+            JsonNode model = wrapped ? tree.get("model") : tree;
+            webEditorDfd = Metrics.timeStage("json_parse", () -> Util.objectMapper.convertValue(model, WebEditorDfd.class));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            result.put("error", "Invalid Json Model");
+            return result;
+        }
+        try {
+            var summary = analyzeService.summarize(webEditorDfd, includeLabels, skipAnnotations);
+            result.set("violations", Util.objectMapper.valueToTree(summary.violations()));
+            if (summary.labels() != null) {
+                result.set("labels", Util.objectMapper.valueToTree(summary.labels()));
+            }
+        } catch (IllegalArgumentException e) {
+            //Invalid content of a well-formed model, e.g. a constraint that cannot be parsed
+            result.put("error", e.getMessage());
+        } catch (RuntimeException e) {
+            result.put("error", "Analysis failed: " + e.getMessage());
+        }
+        return result;
+    }
+
+    private static void writeLine(Writer writer, ObjectNode result, AtomicReference<IOException> writeFailure) {
+        synchronized (writer) {
+            if (writeFailure.get() != null) {
+                return;
+            }
+            try {
+                writer.write(result.toString());
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                writeFailure.set(e);
+            }
+        }
+    }
+
+    /**
+     * Outcome of a batch analysis
+     * @param diagrams Number of diagrams in the input
+     * @param violating Number of diagrams violating at least one constraint
+     * @param failed Number of diagrams that could not be analyzed
+     */
+    public record BatchSummary(int diagrams, int violating, int failed) {
+    }
+}
@@ -0,0 +1,148 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe least recently used cache that is bounded by the number of entries, the summed weight of all entries and the age of each entry
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class BoundedCache<K, V> {
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long ttlNanos;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long weight;
+
+    /**
+     * Creates a new cache
+     * @param maxEntries Maximum number of entries, zero disables the cache
+     * @param maxWeight Maximum summed weight of all entries
+     * @param ttlSeconds Time after which an entry expires, zero or less for no expiry
+     */
+    public BoundedCache(int maxEntries, long maxWeight, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlSeconds > 0 ? TimeUnit.SECONDS.toNanos(ttlSeconds) : 0;
+    }
+
+    /**
+     * Looks up a value and marks it as recently used
+     * @param key Key of the value
+     * @return Cached value or null if not present or expired
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            var entry = entries.get(key);
+            if (entry != null && isExpired(entry, System.nanoTime())) {
+                remove(key, entry);
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value();
+        }
+    }
+
+    /**
+     * Stores a value, evicting least recently used entries until all bounds hold again
+     * @param key Key of the value
+     * @param value Value to be cached
+     * @param entryWeight Weight of the value, e.g. its estimated size in bytes
+     */
+    public void put(K key, V value, long entryWeight) {
+        if (maxEntries <= 0 || entryWeight > maxWeight) {
+            return;
+        }
+        synchronized (entries) {
+            var previous = entries.put(key, new Entry<>(value, entryWeight, System.nanoTime()));
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+            weight += entryWeight;
+            evict();
+        }
+    }
+
+    /**
+     * Removes a value, e.g. because it will not be requested again
+     * @param key Key of the value
+     */
+    public void remove(K key) {
+        synchronized (entries) {
+            var entry = entries.remove(key);
+            if (entry != null) {
+                weight -= entry.weight();
+            }
+        }
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the counters of the cache
+     * @return Cache statistics
+     */
+    public CacheStatistics getStatistics() {
+        synchronized (entries) {
+            return new CacheStatistics(hits.get(), misses.get(), evictions.get(), entries.size(), weight);
+        }
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next().getValue();
+            if (entries.size() <= maxEntries && weight <= maxWeight && !isExpired(entry, now)) {
+                break;
+            }
+            iterator.remove();
+            weight -= entry.weight();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(K key, Entry<V> entry) {
+        entries.remove(key);
+        weight -= entry.weight();
+        evictions.incrementAndGet();
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlNanos > 0 && now - entry.createdAt() > ttlNanos;
+    }
+
+    private record Entry<V>(V value, long weight, long createdAt) {
+    }
+
+    /**
+     * Snapshot of the cache counters
+     * @param hits Number of successful lookups
+     * @param misses Number of lookups without a usable entry
+     * @param evictions Number of entries removed due to size, weight or age
+     * @param size Current number of entries
+     * @param weight Current summed weight of all entries
+     */
+    public record CacheStatistics(long hits, long misses, long evictions, int size, long weight) {
+    }
+}
@@ -0,0 +1,110 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Computes content hashes of WebDFDs that only depend on the analysis relevant parts of the model.
+ * Object fields are hashed in sorted order, layout fields and annotations are skipped
+ */
+public class CanonicalHash {
+    /**
+     * Fields that only describe the layout or the editor state and do not influence the analysis
+     */
+    public static final Set<String> IGNORED_FIELDS = Set.of("position", "size", "routingPoints", "routerKind", "selected", "hoverFeedback", "opacity",
+            "strokeWidth", "canvasBounds", "scroll", "zoom", "features", "annotations");
+
+    private CanonicalHash() {
+    }
+
+    /**
+     * Hashes a WebDFD
+     * @param webEditorDfd WebDFD to be hashed
+     * @return Hash and size of the canonical representation
+     */
+    public static Result of(WebEditorDfd webEditorDfd) {
+        return of(Util.objectMapper.valueToTree(webEditorDfd));
+    }
+
+    /**
+     * Hashes an arbitrary part of a WebDFD in tree representation
+     * @param node Tree to be hashed
+     * @return Hash and size of the canonical representation
+     */
+    public static Result of(JsonNode node) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        var counter = new CountingOutputStream();
+        try (var generator = Util.objectMapper.getFactory().createGenerator(new DigestOutputStream(counter, digest))) {
+            writeCanonical(node, generator);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to hash model", e);
+        }
+        return new Result(HexFormat.of().formatHex(digest.digest()), counter.count);
+    }
+
+    private static void writeCanonical(JsonNode node, JsonGenerator generator) throws IOException {
+        if (node.isObject()) {
+            List<String> fieldNames = new ArrayList<>();
+            node.fieldNames().forEachRemaining(fieldNames::add);
+            Collections.sort(fieldNames);
+            generator.writeStartObject();
+            for (String fieldName : fieldNames) {
+                var value = node.get(fieldName);
+                if (IGNORED_FIELDS.contains(fieldName) || value.isNull()) {
+                    continue;
+                }
+                generator.writeFieldName(fieldName);
+                writeCanonical(value, generator);
+            }
+            generator.writeEndObject();
+        } else if (node.isArray()) {
+            generator.writeStartArray();
+            for (var element : node) {
+                writeCanonical(element, generator);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeTree(node);
+        }
+    }
+
+    /**
+     * Canonical hash of a model
+     * @param hash Hex encoded SHA-256 hash
+     * @param size Size of the canonical representation in bytes
+     */
+    public record Result(String hash, long size) {
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of requests of an endpoint that are processed concurrently.
+ * Requests exceeding the limit wait in a bounded queue for a limited time, all further requests are rejected immediately
+ */
+public class ConcurrencyLimiter {
+    public enum Admission {
+        ADMITTED, QUEUE_FULL, TIMED_OUT
+    }
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxWaitMillis;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Creates a new limiter
+     * @param maxConcurrent Number of requests processed concurrently
+     * @param maxQueued Number of requests that may wait for processing
+     * @param maxWaitMillis Time a request waits for processing before it is rejected
+     */
+    public ConcurrencyLimiter(int maxConcurrent, int maxQueued, long maxWaitMillis) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Creates the limiter of an endpoint. Keys of the form {@code dfa.limits.<endpoint>.<setting>} override the defaults {@code dfa.limits.<setting>}
+     * @param endpoint Name of the endpoint
+     * @return Configured limiter
+     */
+    public static ConcurrencyLimiter fromConfiguration(String endpoint) {
+        return new ConcurrencyLimiter(getEndpointInt(endpoint, "maxConcurrent", Runtime.getRuntime().availableProcessors()),
+                getEndpointInt(endpoint, "maxQueued", 16), getEndpointLong(endpoint, "maxWaitMillis", 10000));
+    }
+
+    /**
+     * Reads an endpoint specific setting
+     * @param endpoint Name of the endpoint
+     * @param setting Name of the setting
+     * @param defaultValue Value if neither the endpoint specific nor the general setting is configured
+     * @return Configured value
+     */
+    public static long getEndpointLong(String endpoint, String setting, long defaultValue) {
+        return Configuration.getLong("dfa.limits." + endpoint + "." + setting, Configuration.getLong("dfa.limits." + setting, defaultValue));
+    }
+
+    private static int getEndpointInt(String endpoint, String setting, int defaultValue) {
+        return Configuration.getInt("dfa.limits." + endpoint + "." + setting, Configuration.getInt("dfa.limits." + setting, defaultValue));
+    }
+
+    /**
+     * Waits until the request may be processed. An admitted request has to be {@link #release() released} afterwards
+     * @return Whether the request was admitted or why it was rejected
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public Admission acquire() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            return Admission.ADMITTED;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return Admission.QUEUE_FULL;
+        }
+        try {
+            return permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS) ? Admission.ADMITTED : Admission.TIMED_OUT;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Returns the number of requests that are currently processed
+     * @return Number of admitted requests
+     */
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of requests that wait for processing
+     * @return Number of waiting requests
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+}
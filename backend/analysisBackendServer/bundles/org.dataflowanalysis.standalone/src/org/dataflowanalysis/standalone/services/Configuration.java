@@ -0,0 +1,94 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Resolves configuration values of the backend.
+ * A key like {@code dfa.analysisCache.maxEntries} is looked up as system property first, as environment variable {@code DFA_ANALYSISCACHE_MAXENTRIES} second
+ * and in the properties file referenced by {@value #CONFIG_FILE_KEY} third
+ */
+public class Configuration {
+    /**
+     * Key of the path to an optional properties file with further configuration values
+     */
+    public static final String CONFIG_FILE_KEY = "dfa.configFile";
+    private static Properties fileProperties;
+
+    private Configuration() {
+    }
+
+    /**
+     * Returns the raw configuration value
+     * @param key Key of the value
+     * @return Configured value or null if not configured
+     */
+    public static String get(String key) {
+        String value = getEnvironmentValue(key);
+        if (value == null && !CONFIG_FILE_KEY.equals(key)) {
+            value = getFileProperties().getProperty(key);
+        }
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    public static String getString(String key, String defaultValue) {
+        String value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid integer for configuration key " + key + ": " + value);
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid number for configuration key " + key + ": " + value);
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    private static String getEnvironmentValue(String key) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(key.replace('.', '_').toUpperCase());
+        }
+        return value;
+    }
+
+    private static synchronized Properties getFileProperties() {
+        if (fileProperties == null) {
+            var properties = new Properties();
+            String configFile = getEnvironmentValue(CONFIG_FILE_KEY);
+            if (configFile != null && !configFile.isBlank()) {
+                try (InputStream inputStream = Files.newInputStream(Path.of(configFile.trim()))) {
+                    properties.load(inputStream);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not read configuration file " + configFile, e);
+                }
+            }
+            fileProperties = properties;
+        }
+        return fileProperties;
+    }
+}
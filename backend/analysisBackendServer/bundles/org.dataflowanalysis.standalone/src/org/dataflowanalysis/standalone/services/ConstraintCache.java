@@ -0,0 +1,82 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.dataflowanalysis.analysis.dfd.dsl.DFDDSLContextProvider;
+import org.dataflowanalysis.analysis.dsl.AnalysisConstraint;
+import org.dataflowanalysis.analysis.utils.StringView;
+
+/**
+ * Cache of parsed DSL constraints, keyed by the constraint name and its normalized text.
+ * Constraints that failed to parse are cached as well, so they are rejected without parsing them again
+ */
+public class ConstraintCache {
+    private static final Logger logger = Logger.getLogger(ConstraintCache.class);
+
+    private final BoundedCache<String, ParsedConstraint> cache;
+    private final AtomicLong savedParseNanos = new AtomicLong();
+
+    /**
+     * Creates a new constraint cache
+     * @param maxEntries Maximum number of cached constraints
+     */
+    public ConstraintCache(int maxEntries) {
+        this.cache = new BoundedCache<>(maxEntries, maxEntries, 0);
+    }
+
+    /**
+     * Returns the parsed constraint, parsing it only if it is not cached yet
+     * @param name Name of the constraint
+     * @param constraint Constraint in DSL representation
+     * @return Parsed constraint
+     * @throws IllegalArgumentException If the constraint cannot be parsed
+     */
+    public AnalysisConstraint parse(String name, String constraint) {
+        String source = "- " + name + ": " + constraint.replace("\n", "");
+        var parsed = cache.get(source);
+        if (parsed != null) {
+            savedParseNanos.addAndGet(parsed.parseNanos());
+        } else {
+            long start = System.nanoTime();
+            var result = AnalysisConstraint.fromString(new StringView(source), new DFDDSLContextProvider());
+            long parseNanos = System.nanoTime() - start;
+            if (result.failed()) {
+                logger.error(result.getError());
+                parsed = new ParsedConstraint(null, parseNanos);
+            } else {
+                parsed = new ParsedConstraint(result.getResult(), parseNanos);
+            }
+            cache.put(source, parsed, 1);
+        }
+
+        if (parsed.constraint() == null) {
+            throw new IllegalArgumentException("Unable to parse constraint: " + name);
+        }
+        return parsed.constraint();
+    }
+
+    /**
+     * Returns the counters of the cache. Constraints that failed to parse count as entries as well
+     * @return Cache statistics
+     */
+    public BoundedCache.CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+
+    /**
+     * Returns the summed parse time of all constraints that were served from the cache
+     * @return Saved parse time in nanoseconds
+     */
+    public long getSavedParseNanos() {
+        return savedParseNanos.get();
+    }
+
+    /**
+     * Result of parsing a constraint
+     * @param constraint Parsed constraint or null if parsing failed
+     * @param parseNanos Time it took to parse the constraint
+     */
+    private record ParsedConstraint(AnalysisConstraint constraint, long parseNanos) {
+    }
+}
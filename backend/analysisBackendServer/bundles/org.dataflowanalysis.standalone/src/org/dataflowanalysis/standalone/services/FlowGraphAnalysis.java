@@ -0,0 +1,425 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+import org.dataflowanalysis.analysis.core.AbstractTransposeFlowGraph;
+import org.dataflowanalysis.analysis.core.AbstractVertex;
+import org.dataflowanalysis.analysis.core.DataCharacteristic;
+import org.dataflowanalysis.analysis.dfd.DFDDataFlowAnalysisBuilder;
+import org.dataflowanalysis.analysis.dfd.core.DFDFlowGraphCollection;
+import org.dataflowanalysis.analysis.dfd.core.DFDVertex;
+import org.dataflowanalysis.analysis.dfd.resource.DFDModelResourceProvider;
+import org.dataflowanalysis.converter.web2dfd.Web2DFDConverter;
+import org.dataflowanalysis.converter.web2dfd.WebEditorConverterModel;
+import org.dataflowanalysis.converter.web2dfd.model.Annotation;
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Analysis of a model on its transpose flow graphs.
+ * The model is converted into a DFD and every transpose flow graph is evaluated and checked against the constraints on its own. Annotations carry the
+ * position of their flow graph in the order the flow graphs were found, so the ids are the same whether a flow graph was evaluated again or not.
+ * Given the results of a previous analysis, flow graphs whose nodes and flows did not change since then are not evaluated again.
+ * Large models may be analyzed on a fork-join pool, evaluating every flow graph and checking every constraint on every flow graph as a task of its own
+ */
+public class FlowGraphAnalysis {
+    static final String PROPAGATED_PREFIX = "Propagated: ";
+    static final String INCOMING_PREFIX = "Incoming: ";
+    static final String CONSTRAINT_PREFIX = "Constraint ";
+    private static final String LABEL_ICON = "tag";
+    private static final String VIOLATION_ICON = "bolt";
+    private static final String VIOLATION_COLOR = "#ff0000";
+
+    private final ForkJoinPool pool;
+    private final int minNodes;
+
+    /**
+     * Creates an analysis that evaluates all flow graphs sequentially
+     */
+    public FlowGraphAnalysis() {
+        this(null, 0);
+    }
+
+    /**
+     * Creates an analysis that evaluates the flow graphs of large models in parallel
+     * @param pool Pool that evaluates flow graphs and checks constraints, null to analyze all models sequentially
+     * @param minNodes Minimum number of nodes of a model to be analyzed in parallel, smaller models are analyzed sequentially
+     */
+    public FlowGraphAnalysis(ForkJoinPool pool, int minNodes) {
+        this.pool = pool;
+        this.minNodes = minNodes;
+    }
+
+    /**
+     * Analyzes a model
+     * @param webEditorDfd Model to be analyzed, is not modified
+     * @param previous Results of the flow graphs of a previous analysis by their hash, null if the results are not kept for a later analysis
+     * @return Annotations and violated constraints of all nodes and, if previous results were given, the results of all flow graphs by their hash
+     */
+    public Result analyze(WebEditorDfd webEditorDfd, Map<String, FlowGraphResult> previous) {
+        var model = load(webEditorDfd);
+        var flowGraphs = model.flowGraphs();
+        var constraints = Util.parseConstraints(webEditorDfd);
+
+        var hashes = previous == null ? null : new FlowGraphHashes(webEditorDfd);
+        var results = new FlowGraphResult[flowGraphs.size()];
+        List<AbstractTransposeFlowGraph> pending = new ArrayList<>();
+        List<Integer> pendingIndices = new ArrayList<>();
+        List<String> pendingHashes = new ArrayList<>();
+        for (int i = 0; i < flowGraphs.size(); i++) {
+            String hash = hashes == null ? null : hashes.of(flowGraphs.get(i));
+            var previousResult = hash == null ? null : previous.get(hash);
+            if (previousResult != null) {
+                results[i] = previousResult;
+            } else {
+                pending.add(flowGraphs.get(i));
+                pendingIndices.add(i);
+                pendingHashes.add(hash);
+            }
+        }
+        if (previous != null) {
+            countFlowGraphs("reused", flowGraphs.size() - pending.size());
+            countFlowGraphs("analyzed", pending.size());
+        }
+
+        boolean parallel = isParallel(webEditorDfd, pending.size());
+        var evaluated = evaluate(pending, parallel);
+        var violations = check(evaluated, constraints, model.resourceProvider(), parallel);
+        for (int i = 0; i < evaluated.size(); i++) {
+            List<NodeAnnotation> annotations = annotateLabels(evaluated.get(i));
+            annotations.addAll(violations.get(i));
+            results[pendingIndices.get(i)] = new FlowGraphResult(pendingHashes.get(i), annotations);
+        }
+
+        return Metrics.timeStage("annotate", () -> {
+            Map<String, List<Annotation>> annotations = new HashMap<>();
+            Map<String, Set<String>> violatedConstraints = new HashMap<>();
+            Map<String, FlowGraphResult> resultsByHash = previous == null ? null : new HashMap<>();
+            for (int i = 0; i < results.length; i++) {
+                for (var annotation : results[i].annotations()) {
+                    annotations.computeIfAbsent(annotation.nodeId(), key -> new ArrayList<>())
+                        .add(new Annotation(annotation.message(), annotation.icon(), annotation.color(), i));
+                    if (annotation.constraint() != null) {
+                        violatedConstraints.computeIfAbsent(annotation.nodeId(), key -> new LinkedHashSet<>()).add(annotation.constraint());
+                    }
+                }
+                if (resultsByHash != null) {
+                    resultsByHash.put(results[i].hash(), results[i]);
+                }
+            }
+            return new Result(annotations, violatedConstraints, resultsByHash);
+        });
+    }
+
+    /**
+     * Analyzes a model and only collects its violations, without creating annotations
+     * @param webEditorDfd Model to be analyzed, is not modified
+     * @param includeLabels Whether the propagated labels of all nodes are collected as well
+     * @return Violations and, if requested, propagated labels
+     */
+    public AnalysisSummary summarize(WebEditorDfd webEditorDfd, boolean includeLabels) {
+        var model = load(webEditorDfd);
+        var constraints = Util.parseConstraints(webEditorDfd);
+        boolean parallel = isParallel(webEditorDfd, model.flowGraphs().size());
+        var evaluated = evaluate(model.flowGraphs(), parallel);
+        var violations = check(evaluated, constraints, model.resourceProvider(), parallel);
+
+        Map<String, Set<String>> violatedConstraints = new HashMap<>();
+        for (var flowGraphViolations : violations) {
+            for (var violation : flowGraphViolations) {
+                violatedConstraints.computeIfAbsent(violation.nodeId(), key -> new LinkedHashSet<>()).add(violation.constraint());
+            }
+        }
+        return new AnalysisSummary(Violation.collect(webEditorDfd, violatedConstraints), includeLabels ? collectLabels(evaluated) : null);
+    }
+
+    /**
+     * Converts a model into a DFD and finds its transpose flow graphs
+     * @param webEditorDfd Model to be converted
+     * @return Resources of the DFD and its transpose flow graphs, not evaluated yet
+     */
+    private static LoadedModel load(WebEditorDfd webEditorDfd) {
+        var dfd = Metrics.timeStage("web2dfd", () -> new Web2DFDConverter().convert(new WebEditorConverterModel(webEditorDfd)));
+        var resourceProvider = new DFDModelResourceProvider(dfd.dataDictionary(), dfd.dataFlowDiagram());
+        var analysis = new DFDDataFlowAnalysisBuilder().standalone()
+                .useCustomResourceProvider(resourceProvider)
+                .build();
+        analysis.initializeAnalysis();
+        List<? extends AbstractTransposeFlowGraph> flowGraphs = Metrics.timeStage("flow_graphs", analysis::findFlowGraphs).getTransposeFlowGraphs();
+        return new LoadedModel(resourceProvider, List.copyOf(flowGraphs));
+    }
+
+    private boolean isParallel(WebEditorDfd webEditorDfd, int flowGraphs) {
+        return pool != null && flowGraphs > 1 && countNodes(webEditorDfd) >= minNodes;
+    }
+
+    /**
+     * Evaluates transpose flow graphs
+     * @param flowGraphs Transpose flow graphs to be evaluated
+     * @param parallel Whether the flow graphs are evaluated on the pool
+     * @return Evaluated flow graphs in the same order
+     */
+    private List<AbstractTransposeFlowGraph> evaluate(List<AbstractTransposeFlowGraph> flowGraphs, boolean parallel) {
+        List<Supplier<AbstractTransposeFlowGraph>> evaluations = new ArrayList<>();
+        for (var flowGraph : flowGraphs) {
+            evaluations.add(flowGraph::evaluate);
+        }
+        return Metrics.timeStage("propagation", () -> run(evaluations, parallel));
+    }
+
+    /**
+     * Checks every constraint on every evaluated transpose flow graph on its own
+     * @param evaluated Evaluated transpose flow graphs
+     * @param constraints Constraints to be checked
+     * @param resourceProvider Resources of the DFD the flow graphs belong to
+     * @param parallel Whether the checks run on the pool
+     * @return Violation annotations of each flow graph, in the order of the flow graphs
+     */
+    private List<List<NodeAnnotation>> check(List<AbstractTransposeFlowGraph> evaluated, List<NamedConstraint> constraints,
+            DFDModelResourceProvider resourceProvider, boolean parallel) {
+        List<Supplier<List<NodeAnnotation>>> checks = new ArrayList<>();
+        for (var flowGraph : evaluated) {
+            var collection = new DFDFlowGraphCollection(List.of(flowGraph), resourceProvider);
+            for (var constraint : constraints) {
+                checks.add(() -> findViolations(collection, constraint));
+            }
+        }
+        var violations = Metrics.timeStage("constraint_eval", () -> run(checks, parallel));
+        List<List<NodeAnnotation>> byFlowGraph = new ArrayList<>();
+        for (int i = 0; i < evaluated.size(); i++) {
+            List<NodeAnnotation> flowGraphViolations = new ArrayList<>();
+            violations.subList(i * constraints.size(), (i + 1) * constraints.size()).forEach(flowGraphViolations::addAll);
+            byFlowGraph.add(flowGraphViolations);
+        }
+        return byFlowGraph;
+    }
+
+    /**
+     * Runs tasks, either one after the other or all at once on the pool
+     * @param tasks Independent tasks
+     * @param parallel Whether the tasks are run on the pool
+     * @return Results in the order of the tasks
+     */
+    private <T> List<T> run(List<Supplier<T>> tasks, boolean parallel) {
+        if (!parallel) {
+            return tasks.stream().map(Supplier::get).toList();
+        }
+        List<ForkJoinTask<T>> submitted = new ArrayList<>();
+        for (var task : tasks) {
+            submitted.add(pool.submit(() -> task.get()));
+        }
+        return submitted.stream().map(ForkJoinTask::join).toList();
+    }
+
+    /**
+     * Annotates the nodes of an evaluated transpose flow graph with their incoming and outgoing labels
+     * @param flowGraph Evaluated transpose flow graph
+     * @return Modifiable list of annotations
+     */
+    private static List<NodeAnnotation> annotateLabels(AbstractTransposeFlowGraph flowGraph) {
+        List<NodeAnnotation> annotations = new ArrayList<>();
+        for (var vertex : flowGraph.getVertices()) {
+            String id = getNodeId(vertex);
+            if (id == null) {
+                continue;
+            }
+            var incoming = formatLabels(vertex.getAllIncomingDataCharacteristics());
+            if (!incoming.isEmpty()) {
+                annotations.add(new NodeAnnotation(id, INCOMING_PREFIX + incoming, LABEL_ICON, null, null));
+            }
+            var propagated = formatLabels(vertex.getAllOutgoingDataCharacteristics());
+            if (!propagated.isEmpty()) {
+                annotations.add(new NodeAnnotation(id, PROPAGATED_PREFIX + propagated, LABEL_ICON, null, null));
+            }
+        }
+        return annotations;
+    }
+
+    /**
+     * Checks a single constraint on an evaluated transpose flow graph
+     * @param collection Collection containing only the evaluated flow graph
+     * @param constraint Constraint to be checked
+     * @return Annotations of the violating nodes
+     */
+    private static List<NodeAnnotation> findViolations(DFDFlowGraphCollection collection, NamedConstraint constraint) {
+        var violations = constraint.constraint().findViolations(collection);
+        List<NodeAnnotation> annotations = new ArrayList<>();
+        for (var violation : violations) {
+            for (var vertex : violation.getMatchedVertices()) {
+                String id = getNodeId(vertex);
+                if (id != null) {
+                    annotations.add(new NodeAnnotation(id, CONSTRAINT_PREFIX + constraint.name() + " violated", VIOLATION_ICON, VIOLATION_COLOR,
+                            constraint.name()));
+                }
+            }
+        }
+        return annotations;
+    }
+
+    private static long countNodes(WebEditorDfd webEditorDfd) {
+        return webEditorDfd.model().children().stream().filter(child -> child.type().startsWith("node")).count();
+    }
+
+    /**
+     * Formats labels in the form {@code <type>.<value>}, each label is listed once
+     * @param dataCharacteristics Labels of the data of a vertex
+     * @return Comma separated labels, empty if there are none
+     */
+    private static String formatLabels(List<DataCharacteristic> dataCharacteristics) {
+        Set<String> labels = new LinkedHashSet<>();
+        for (var dataCharacteristic : dataCharacteristics) {
+            for (var value : dataCharacteristic.getAllCharacteristics()) {
+                labels.add(value.getTypeName() + "." + value.getValueName());
+            }
+        }
+        return String.join(", ", labels);
+    }
+
+    /**
+     * Collects the labels of the outgoing data of every node over all transpose flow graphs it is part of
+     * @param flowGraphs Evaluated transpose flow graphs
+     * @return Sorted labels in the form {@code <type>.<value>} by node id
+     */
+    private static Map<String, List<String>> collectLabels(List<AbstractTransposeFlowGraph> flowGraphs) {
+        Map<String, Set<String>> labels = new TreeMap<>();
+        for (var flowGraph : flowGraphs) {
+            for (var vertex : flowGraph.getVertices()) {
+                String id = getNodeId(vertex);
+                if (id == null) {
+                    continue;
+                }
+                var nodeLabels = labels.computeIfAbsent(id, key -> new TreeSet<>());
+                for (var dataCharacteristic : vertex.getAllOutgoingDataCharacteristics()) {
+                    for (var value : dataCharacteristic.getAllCharacteristics()) {
+                        nodeLabels.add(value.getTypeName() + "." + value.getValueName());
+                    }
+                }
+            }
+        }
+        Map<String, List<String>> result = new TreeMap<>();
+        labels.forEach((id, nodeLabels) -> result.put(id, List.copyOf(nodeLabels)));
+        return result;
+    }
+
+    static String getNodeId(AbstractVertex<?> vertex) {
+        return vertex instanceof DFDVertex dfdVertex && dfdVertex.getReferencedElement() != null ? dfdVertex.getReferencedElement().getId() : null;
+    }
+
+    private static void countFlowGraphs(String result, int flowGraphs) {
+        Metrics.counter("dfa_incremental_flow_graphs_total", "Number of transpose flow graphs by whether their previous result was reused", "result", result)
+            .add(flowGraphs);
+    }
+
+    /**
+     * Result of an analysis
+     * @param annotations Annotations of all nodes that are part of a transpose flow graph, by node id
+     * @param violations Names of the constraints violated by each violating node in the order they were found, by node id
+     * @param flowGraphs Results of all transpose flow graphs by their hash, null if they are not kept
+     */
+    public record Result(Map<String, List<Annotation>> annotations, Map<String, Set<String>> violations, Map<String, FlowGraphResult> flowGraphs) {
+    }
+
+    /**
+     * Result of a single transpose flow graph, independent of its position among the flow graphs of the model
+     * @param hash Hash of the nodes and flows of the flow graph and the label types and constraints of the model, null if it is not kept
+     * @param annotations Annotations of the nodes of the flow graph
+     */
+    public record FlowGraphResult(String hash, List<NodeAnnotation> annotations) {
+    }
+
+    /**
+     * Annotation of a node without the id of its flow graph
+     * @param nodeId Id of the annotated node
+     * @param message Message of the annotation
+     * @param icon Icon of the annotation
+     * @param color Color of the node, null to keep its color
+     * @param constraint Name of the violated constraint, null for annotations of labels
+     */
+    public record NodeAnnotation(String nodeId, String message, String icon, String color, String constraint) {
+    }
+
+    private record LoadedModel(DFDModelResourceProvider resourceProvider, List<AbstractTransposeFlowGraph> flowGraphs) {
+    }
+
+    /**
+     * Hashes transpose flow graphs by the nodes and flows of the model they consist of.
+     * The hash covers every node of the flow graph, every flow between two of its nodes and the label types and constraints of the model, so it changes
+     * whenever an edit may change the evaluation of the flow graph
+     */
+    private static class FlowGraphHashes {
+        private final String contextHash;
+        private final Map<String, String> nodeHashes = new HashMap<>();
+        private final Map<String, List<Flow>> outgoingFlows = new HashMap<>();
+
+        FlowGraphHashes(WebEditorDfd webEditorDfd) {
+            JsonNode tree = Util.objectMapper.valueToTree(webEditorDfd);
+            var context = Util.objectMapper.createObjectNode();
+            context.set("labelTypes", tree.get("labelTypes"));
+            context.set("constraints", tree.get("constraints"));
+            contextHash = CanonicalHash.of(context).hash();
+
+            Map<String, String> ownerOfPort = new HashMap<>();
+            var children = tree.path("model").path("children");
+            for (var child : children) {
+                if (child.path("type").asText().startsWith("edge")) {
+                    continue;
+                }
+                String id = child.path("id").asText();
+                nodeHashes.put(id, CanonicalHash.of(child).hash());
+                ownerOfPort.put(id, id);
+                for (var port : child.path("ports")) {
+                    ownerOfPort.put(port.path("id").asText(), id);
+                }
+            }
+            for (var child : children) {
+                if (!child.path("type").asText().startsWith("edge")) {
+                    continue;
+                }
+                String source = ownerOfPort.get(child.path("sourceId").asText());
+                String target = ownerOfPort.get(child.path("targetId").asText());
+                if (source != null && target != null) {
+                    outgoingFlows.computeIfAbsent(source, key -> new ArrayList<>()).add(new Flow(target, CanonicalHash.of(child).hash()));
+                }
+            }
+        }
+
+        String of(AbstractTransposeFlowGraph flowGraph) {
+            var content = Util.objectMapper.createArrayNode();
+            content.add(contextHash);
+            Set<String> ids = new HashSet<>();
+            for (var vertex : flowGraph.getVertices()) {
+                String id = getNodeId(vertex);
+                ids.add(id);
+                content.add(id);
+                content.add(nodeHashes.get(id));
+            }
+            List<String> flows = new ArrayList<>();
+            for (var id : ids) {
+                for (var flow : outgoingFlows.getOrDefault(id, List.of())) {
+                    if (ids.contains(flow.target())) {
+                        flows.add(flow.hash());
+                    }
+                }
+            }
+            Collections.sort(flows);
+            flows.forEach(content::add);
+            return CanonicalHash.of(content).hash();
+        }
+
+        private record Flow(String target, String hash) {
+        }
+    }
+}
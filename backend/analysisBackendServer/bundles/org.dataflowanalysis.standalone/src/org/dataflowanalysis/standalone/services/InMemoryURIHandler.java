@@ -0,0 +1,97 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.URIHandlerImpl;
+
+/**
+ * URI handler that keeps the content of all {@code memory:} URIs in memory, so EMF resources can be loaded and saved without touching the file system.
+ * Relative references between resources in the same handler are resolved like references between files in the same folder
+ */
+public class InMemoryURIHandler extends URIHandlerImpl {
+    public static final String SCHEME = "memory";
+
+    private final Map<URI, byte[]> contents = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a new handler at the URI converter of the resource set
+     * @param resourceSet Resource set that should resolve {@code memory:} URIs
+     * @return Registered handler
+     */
+    public static InMemoryURIHandler register(ResourceSet resourceSet) {
+        var handler = new InMemoryURIHandler();
+        resourceSet.getURIConverter().getURIHandlers().add(0, handler);
+        return handler;
+    }
+
+    /**
+     * Creates the in-memory URI of a file
+     * @param fileName Name of the file including the file extension
+     * @return In-memory URI
+     */
+    public static URI createURI(String fileName) {
+        return URI.createURI(SCHEME + ":/" + URI.encodeSegment(fileName, false));
+    }
+
+    /**
+     * Stores the content of a file
+     * @param uri In-memory URI of the file
+     * @param content Content of the file
+     */
+    public void put(URI uri, String content) {
+        contents.put(uri, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the content of a file
+     * @param uri In-memory URI of the file
+     * @return Content of the file or null if it does not exist
+     */
+    public String getString(URI uri) {
+        var content = contents.get(uri);
+        return content == null ? null : new String(content, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean canHandle(URI uri) {
+        return SCHEME.equals(uri.scheme());
+    }
+
+    @Override
+    public InputStream createInputStream(URI uri, Map<?, ?> options) throws FileNotFoundException {
+        var content = contents.get(uri);
+        if (content == null) {
+            throw new FileNotFoundException("No in-memory content for " + uri);
+        }
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public OutputStream createOutputStream(URI uri, Map<?, ?> options) {
+        return new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                contents.put(uri, toByteArray());
+            }
+        };
+    }
+
+    @Override
+    public void delete(URI uri, Map<?, ?> options) {
+        contents.remove(uri);
+    }
+
+    @Override
+    public boolean exists(URI uri, Map<?, ?> options) {
+        return contents.containsKey(uri);
+    }
+}
@@ -0,0 +1,44 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.Map;
+
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
+
+/**
+ * Session scoped analysis that only evaluates the transpose flow graphs whose nodes or flows changed since the previous analysis of the same session.
+ * The results of all flow graphs of the previous analysis are kept per session, see {@link FlowGraphAnalysis}
+ */
+public class IncrementalAnalysis {
+    private final BoundedCache<String, Map<String, FlowGraphAnalysis.FlowGraphResult>> sessions;
+
+    /**
+     * Creates a new incremental analysis
+     * @param maxSessions Maximum number of sessions whose previous results are kept
+     * @param ttlSeconds Time after which an idle session is discarded
+     */
+    public IncrementalAnalysis(int maxSessions, long ttlSeconds) {
+        this.sessions = new BoundedCache<>(maxSessions, maxSessions, ttlSeconds);
+    }
+
+    /**
+     * Analyzes a model, reusing the results of all flow graphs that are unchanged since the previous analysis of the session
+     * @param sessionId Id of the editing session
+     * @param webEditorDfd Model to be analyzed
+     * @param analysis Analysis that evaluates the changed flow graphs
+     * @return Annotations and violated constraints of all nodes, without the results of the flow graphs which are kept by the session
+     */
+    public FlowGraphAnalysis.Result analyze(String sessionId, WebEditorDfd webEditorDfd, FlowGraphAnalysis analysis) {
+        var previous = sessions.get(sessionId);
+        var result = analysis.analyze(webEditorDfd, previous == null ? Map.of() : previous);
+        sessions.put(sessionId, result.flowGraphs(), 1);
+        return new FlowGraphAnalysis.Result(result.annotations(), result.violations(), null);
+    }
+
+    /**
+     * Discards the previous results of a session that ended
+     * @param sessionId Id of the editing session
+     */
+    public void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+}
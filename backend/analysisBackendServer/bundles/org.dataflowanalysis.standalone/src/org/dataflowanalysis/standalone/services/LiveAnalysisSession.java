@@ -0,0 +1,265 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.dataflowanalysis.converter.web2dfd.model.Annotation;
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Model of a single live editing connection.
+ * The client sends the model once and afterwards only edits of it, the session answers with the annotations of all nodes whose annotations changed.
+ * <p>
+ * Messages of the client:
+ * <ul>
+ * <li>{@code {"type": "model", "model": <WebDFD>}} replaces the model</li>
+ * <li>{@code {"type": "delta", "upsert": [<node or flow>], "remove": [<id>], "constraints": [...], "labelTypes": [...]}} edits the model, all fields are optional</li>
+ * </ul>
+ * Messages of the session:
+ * <ul>
+ * <li>{@code {"type": "annotations", "nodes": {<id>: [<annotation>]}, "removed": [<id>]}}</li>
+ * <li>{@code {"type": "error", "message": <message>}}</li>
+ * </ul>
+ */
+public class LiveAnalysisSession {
+    /**
+     * Name of the endpoint whose limits, e.g. {@code dfa.limits.analyzeWs.maxConcurrent}, apply to the analyses of all connections
+     */
+    public static final String ENDPOINT = "analyzeWs";
+    private static final ConcurrencyLimiter limiter = ConcurrencyLimiter.fromConfiguration(ENDPOINT);
+
+    static {
+        Metrics.gauge("dfa_requests_in_flight", "Number of requests that are processed", limiter::getActive, "endpoint", ENDPOINT);
+        Metrics.gauge("dfa_requests_queued", "Number of requests that wait for processing", limiter::getQueued, "endpoint", ENDPOINT);
+    }
+
+    private final String id = "live:" + UUID.randomUUID();
+    private final AnalyzeService analyzeService = new AnalyzeService();
+    private final Map<String, JsonNode> sentAnnotations = new HashMap<>();
+    private ObjectNode model;
+    private CompletableFuture<Map<String, List<Annotation>>> currentAnalysis;
+    private volatile boolean closed;
+
+    /**
+     * Applies a message of the client to the model and starts its analysis
+     * @param message Message of the client
+     * @return Update for the client, completes with null if no annotation changed and is cancelled if a newer message superseded it
+     * @throws IllegalArgumentException If the message is invalid
+     * @throws RejectedExecutionException If the analysis is rejected by the limits of the endpoint or the analysis executor
+     */
+    public synchronized CompletableFuture<String> handleMessage(String message) {
+        JsonNode request;
+        try {
+            request = Util.objectMapper.readTree(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid Json message");
+        }
+
+        switch (request.path("type").asText()) {
+            case "model" -> {
+                if (!request.path("model").isObject()) {
+                    throw new IllegalArgumentException("Missing model");
+                }
+                model = (ObjectNode) request.get("model");
+            }
+            case "delta" -> applyDelta(request);
+            default -> throw new IllegalArgumentException("Unknown message type: " + request.path("type").asText());
+        }
+
+        WebEditorDfd webEditorDfd;
+        try {
+            webEditorDfd = Util.objectMapper.treeToValue(model, WebEditorDfd.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid Json Model");
+        }
+        cancelAnalysis("Superseded by a newer message");
+        acquirePermit();
+        var analysis = new CompletableFuture<Map<String, List<Annotation>>>();
+        try {
+            AnalysisExecutor.getInstance().submit(() -> {
+                analyze(analysis, webEditorDfd);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            limiter.release();
+            throw new RejectedExecutionException("Too many pending analyses", e);
+        }
+        currentAnalysis = analysis;
+        return analysis.thenApply(annotations -> createUpdate(webEditorDfd, annotations));
+    }
+
+    /**
+     * Cancels the pending analysis and discards the previous results of the session, e.g. because the connection was closed
+     */
+    public synchronized void close() {
+        closed = true;
+        cancelAnalysis("Connection closed");
+        analyzeService.closeSession(id);
+    }
+
+    /**
+     * Creates an error message for the client
+     * @param message Description of the error
+     * @return Serialized error message
+     */
+    public static String createError(String message) {
+        var error = Util.objectMapper.createObjectNode();
+        error.put("type", "error");
+        error.put("message", message);
+        return error.toString();
+    }
+
+    private void applyDelta(JsonNode delta) {
+        if (model == null) {
+            throw new IllegalArgumentException("Delta received before model");
+        }
+        var children = model.path("model").path("children");
+        if (!children.isArray()) {
+            throw new IllegalArgumentException("Invalid Json Model");
+        }
+
+        Set<String> removed = new HashSet<>();
+        delta.path("remove").forEach(it -> removed.add(it.asText()));
+        Map<String, JsonNode> upserts = new HashMap<>();
+        delta.path("upsert").forEach(it -> upserts.put(it.path("id").asText(), it));
+
+        ArrayNode newChildren = Util.objectMapper.createArrayNode();
+        for (var child : children) {
+            String childId = child.path("id").asText();
+            if (removed.contains(childId)) {
+                continue;
+            }
+            var upsert = upserts.remove(childId);
+            newChildren.add(upsert != null ? upsert : child);
+        }
+        delta.path("upsert").forEach(it -> {
+            if (upserts.containsKey(it.path("id").asText())) {
+                newChildren.add(it);
+            }
+        });
+        ((ObjectNode) model.get("model")).set("children", newChildren);
+
+        if (delta.has("constraints")) {
+            model.set("constraints", delta.get("constraints"));
+        }
+        if (delta.has("labelTypes")) {
+            model.set("labelTypes", delta.get("labelTypes"));
+        }
+    }
+
+    /**
+     * Waits for a permit of the endpoint limits. The permit is returned by the task of the analysis it was acquired for
+     * @throws RejectedExecutionException If the analysis is rejected by the limits
+     */
+    private static void acquirePermit() {
+        ConcurrencyLimiter.Admission admission;
+        try {
+            admission = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admission = ConcurrencyLimiter.Admission.TIMED_OUT;
+        }
+        if (admission == ConcurrencyLimiter.Admission.QUEUE_FULL) {
+            throw new RejectedExecutionException("Too many concurrent requests");
+        }
+        if (admission == ConcurrencyLimiter.Admission.TIMED_OUT) {
+            throw new RejectedExecutionException("Server busy");
+        }
+    }
+
+    /**
+     * Cancels the pending analysis. An analysis that already runs is finished, but its result is discarded
+     * @param reason Reason for the cancellation
+     */
+    private void cancelAnalysis(String reason) {
+        if (currentAnalysis != null) {
+            currentAnalysis.completeExceptionally(new CancellationException(reason));
+        }
+    }
+
+    /**
+     * Analyzes the model on the analysis executor, unless the analysis was cancelled while it waited for execution.
+     * The permit of the endpoint limits is returned before the result is handed on, so creating the update never holds it
+     * @param analysis Result of the analysis
+     * @param webEditorDfd Current model
+     */
+    private void analyze(CompletableFuture<Map<String, List<Annotation>>> analysis, WebEditorDfd webEditorDfd) {
+        Map<String, List<Annotation>> annotations = null;
+        RuntimeException failure = null;
+        try {
+            if (!analysis.isDone()) {
+                annotations = analyzeService.getAnnotations(webEditorDfd, id);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            limiter.release();
+            if (closed) {
+                //The connection was closed while the analysis ran and stored the results of the session again
+                analyzeService.closeSession(id);
+            }
+        }
+        if (failure != null) {
+            analysis.completeExceptionally(failure);
+        } else if (annotations != null) {
+            analysis.complete(annotations);
+        }
+    }
+
+    /**
+     * Creates the update of all nodes whose annotations differ from the ones last sent to the client
+     * @param webEditorDfd Analyzed model, its annotations that were not created by the analysis are kept
+     * @param generated Annotations created by the analysis by node id
+     * @return Serialized update or null if no annotation changed
+     */
+    private synchronized String createUpdate(WebEditorDfd webEditorDfd, Map<String, List<Annotation>> generated) {
+        Map<String, JsonNode> annotations = new HashMap<>();
+        for (var child : webEditorDfd.model().children()) {
+            if (!child.type().startsWith("node")) {
+                continue;
+            }
+            List<Annotation> nodeAnnotations = new ArrayList<>();
+            if (child.annotations() != null) {
+                child.annotations().stream().filter(annotation -> !AnalyzeService.isGenerated(annotation)).forEach(nodeAnnotations::add);
+            }
+            nodeAnnotations.addAll(generated.getOrDefault(child.id(), List.of()));
+            annotations.put(child.id(), Util.objectMapper.valueToTree(nodeAnnotations));
+        }
+
+        var update = Util.objectMapper.createObjectNode();
+        update.put("type", "annotations");
+        var changedNodes = update.putObject("nodes");
+        annotations.forEach((nodeId, nodeAnnotations) -> {
+            if (!nodeAnnotations.equals(sentAnnotations.get(nodeId))) {
+                changedNodes.set(nodeId, nodeAnnotations);
+                sentAnnotations.put(nodeId, nodeAnnotations);
+            }
+        });
+        var removedNodes = update.putArray("removed");
+        sentAnnotations.keySet().removeIf(nodeId -> {
+            if (annotations.containsKey(nodeId)) {
+                return false;
+            }
+            removedNodes.add(nodeId);
+            return true;
+        });
+
+        if (changedNodes.isEmpty() && removedNodes.isEmpty()) {
+            return null;
+        }
+        return update.toString();
+    }
+}
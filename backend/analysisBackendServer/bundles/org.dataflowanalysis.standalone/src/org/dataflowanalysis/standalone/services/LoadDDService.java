@@ -1,26 +1,28 @@
 package org.dataflowanalysis.standalone.services;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 import org.dataflowanalysis.converter.dfd2web.DFD2WebConverter;
 import org.dataflowanalysis.converter.dfd2web.DataFlowDiagramAndDictionary;
 import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
 import org.dataflowanalysis.dfd.datadictionary.DataDictionary;
-import org.dataflowanalysis.dfd.datadictionary.datadictionaryPackage;
 import org.dataflowanalysis.dfd.dataflowdiagram.DataFlowDiagram;
-import org.dataflowanalysis.dfd.dataflowdiagram.dataflowdiagramPackage;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
-import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
 
 public class LoadDDService {
+    /**
+     * Configuration key to switch between loading models in memory and loading them from temporary files
+     */
+    public static final String IN_MEMORY_KEY = "dfa.inMemoryModels";
     
     /**
-     * Takes the DFD and DD in serialized form, saves them temporarily, then loads and converts them into an WebDFD and serialzes it
+     * Takes the DFD and DD in serialized form, loads and converts them into an WebDFD and serialzes it
      * @param diagramMessage Serialized DFD and DD
      * @param name Name of the DFD and DD
      * @return Serialized WebJson
@@ -35,39 +37,92 @@ public class LoadDDService {
         String dfdMessage = parts[0];
         String ddMessage = parts[1];
         
-        String randomFolder = UUID.randomUUID().toString(); 
-        
         try {            
-            var dfd = Util.createAndWriteTempFile(name + ".dataflowdiagram", dfdMessage, randomFolder);
-            var dd = Util.createAndWriteTempFile(name + ".datadictionary", ddMessage, randomFolder);
-            return Util.serializeJson(convertDFD(dfd, dd));
+            if (Configuration.getBoolean(IN_MEMORY_KEY, true)) {
+                return Util.serializeJson(convertDFDInMemory(dfdMessage, ddMessage, name));
+            }
+            return Util.serializeJson(convertDFDFromDisk(dfdMessage, ddMessage, name));
         } catch (Exception e) {
             e.printStackTrace();
             throw new IllegalArgumentException("Invalid DFD Model");
         }
     }
     
+    /**
+     * Loads and converts a DFD and DD like {@link #safeLoadAndConvertDFDString(String, String)}, but answers models that were converted before from the
+     * {@link ModelStore} and stores newly converted models
+     * @param diagramMessage Serialized DFD and DD
+     * @param name Name of the DFD and DD
+     * @return Serialized WebJson
+     */
+    public ByteBuffer loadAndConvertDFDStored(String diagramMessage, String name) {
+        var store = ModelStore.getInstance();
+        String key = ModelStore.createKey("loadDD", diagramMessage);
+        var stored = store.getWebEditorDfd(key);
+        if (stored != null) {
+            return stored;
+        }
+        String webEditorDfd = safeLoadAndConvertDFDString(diagramMessage, name);
+        store.put(key, diagramMessage, webEditorDfd);
+        return ByteBuffer.wrap(webEditorDfd.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Loads the DFD and DD from memory and converts them without touching the file system
+     * @param dfdMessage Serialized DFD
+     * @param ddMessage Serialized DD
+     * @param name Name of the DFD and DD
+     * @return Created WebEditor Json representation
+     */
+    private WebEditorDfd convertDFDInMemory(String dfdMessage, String ddMessage, String name) {
+        ResourceSet resourceSet = ModelResources.createResourceSet();
+        var handler = InMemoryURIHandler.register(resourceSet);
+        URI dfdURI = InMemoryURIHandler.createURI(name + ".dataflowdiagram");
+        URI ddURI = InMemoryURIHandler.createURI(name + ".datadictionary");
+        handler.put(dfdURI, dfdMessage);
+        handler.put(ddURI, ddMessage);
+        return convertDFD(resourceSet, dfdURI, ddURI);
+    }
+    
+    /**
+     * Saves the DFD and DD temporarily and converts them from there. Only used if in-memory loading is disabled
+     * @param dfdMessage Serialized DFD
+     * @param ddMessage Serialized DD
+     * @param name Name of the DFD and DD
+     * @return Created WebEditor Json representation
+     * @throws IOException
+     */
+    private WebEditorDfd convertDFDFromDisk(String dfdMessage, String ddMessage, String name) throws IOException {
+        String randomFolder = UUID.randomUUID().toString(); 
+        try {
+            var dfd = Util.createAndWriteTempFile(name + ".dataflowdiagram", dfdMessage, randomFolder);
+            var dd = Util.createAndWriteTempFile(name + ".datadictionary", ddMessage, randomFolder);
+            return convertDFD(ModelResources.createResourceSet(), URI.createFileURI(dfd.toString()), URI.createFileURI(dd.toString()));
+        } finally {
+            Util.deleteTempFolder(randomFolder);
+        }
+    }
+    
     /**
      * Convertes a DFD from the Ecore to the WebEditor Json representation
-     * @param dfd File where DFD is saved
-     * @param dd File where DD is saved
+     * @param resourceSet Resource set used for loading
+     * @param dfd URI where DFD is saved
+     * @param dd URI where DD is saved
      * @return Created WebEditor Json representation
      */
-    private WebEditorDfd convertDFD(File dfd, File dd){
+    private WebEditorDfd convertDFD(ResourceSet resourceSet, URI dfd, URI dd){
         var converter = new DFD2WebConverter();        
-        ResourceSet resourceSet = new ResourceSetImpl();
-        resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(Resource.Factory.Registry.DEFAULT_EXTENSION, new XMIResourceFactoryImpl());
-        resourceSet.getPackageRegistry().put(dataflowdiagramPackage.eNS_URI, dataflowdiagramPackage.eINSTANCE);
-        resourceSet.getPackageRegistry().put(datadictionaryPackage.eNS_URI, datadictionaryPackage.eINSTANCE);
 
-        Resource ddResource = resourceSet.getResource(URI.createFileURI(dd.toString()), true);       
-        Resource dfdResource = resourceSet.getResource(URI.createFileURI(dfd.toString()), true);
+        long loadStart = System.nanoTime();
+        Resource ddResource = resourceSet.getResource(dd, true);       
+        Resource dfdResource = resourceSet.getResource(dfd, true);
         EcoreUtil.resolveAll(resourceSet);
         EcoreUtil.resolveAll(ddResource);
         EcoreUtil.resolveAll(dfdResource);
+        Metrics.recordStage("dfd_load", loadStart);
         DataFlowDiagramAndDictionary dfdAndDD = new DataFlowDiagramAndDictionary((DataFlowDiagram)dfdResource.getContents().get(0), (DataDictionary)ddResource.getContents().get(0));
         
-        var newJson = converter.convert(dfdAndDD);      
+        var newJson = Metrics.timeStage("load_dd_dfd2web", () -> converter.convert(dfdAndDD));      
         
         return newJson.getModel();                  
     }
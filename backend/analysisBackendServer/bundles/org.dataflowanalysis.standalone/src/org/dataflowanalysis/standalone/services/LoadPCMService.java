@@ -2,8 +2,11 @@ package org.dataflowanalysis.standalone.services;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.UUID;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.log4j.Logger;
 import org.dataflowanalysis.analysis.dfd.simple.DFDSimpleTransposeFlowGraphFinder;
 import org.dataflowanalysis.converter.dfd2web.DFD2WebConverter;
 import org.dataflowanalysis.converter.pcm2dfd.PCM2DFDConverter;
@@ -11,62 +14,113 @@ import org.dataflowanalysis.converter.pcm2dfd.PCMConverterModel;
 import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
 
 public class LoadPCMService {
+    private static final Logger logger = Logger.getLogger(LoadPCMService.class);
+    private static final String FILE_SEPARATOR = "---FILE---";
+    
     /**
      * Takes a PCM model in serialized form, saves, loads and converts it into a WebDFD and serializes it
      * @param message
      * @return
      */
     public String safeLoadAndConvertPCMString(String message) {
-        try {
-            String[] files = message.split("---FILE---");
-            
-            File usageModelFile = null;
-            File allocationFile = null;
-            File nodeCharacteristicsFile = null;
-            
-            String randomFolder = UUID.randomUUID().toString(); 
-
-            for (String fileSection : files) {
-                fileSection = fileSection.trim();
-                if (fileSection.isEmpty()) continue;
-
-                int firstColon = fileSection.indexOf(":");
-                if (firstColon == -1) continue; 
-
-                String filename = fileSection.substring(0, firstColon);
-                String fileContent = fileSection.substring(firstColon + 1);
-
-                File file = Util.createAndWriteTempFile(filename, fileContent, randomFolder);
-                
-                if (filename.endsWith(".usagemodel")) {
-                    usageModelFile = file;
-                } else if (filename.endsWith(".allocation")) {
-                    allocationFile = file;
-                } else if (filename.endsWith(".nodecharacteristics")) {
-                    nodeCharacteristicsFile = file;
-                } 
+        return loadAndConvert(message);
+    }
+    
+    /**
+     * Converts a PCM model like {@link #safeLoadAndConvertPCMString(String)}, but answers models that were converted before from the {@link ModelStore}
+     * and stores newly converted models
+     * @param message Serialized PCM files
+     * @return Serialized WebDFD
+     */
+    public ByteBuffer loadAndConvertPCMStored(String message) {
+        var store = ModelStore.getInstance();
+        String key = ModelStore.createKey("loadPCM", message);
+        var stored = store.getWebEditorDfd(key);
+        if (stored != null) {
+            return stored;
+        }
+        String webEditorDfd = loadAndConvert(message);
+        store.put(key, message, webEditorDfd);
+        return ByteBuffer.wrap(webEditorDfd.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Converts a PCM model whose files were streamed into an upload folder, e.g. from a multipart request or a zip archive.
+     * Models that were converted before are answered from the {@link ModelStore}, newly converted models are stored together with all their files
+     * @param upload Uploaded PCM files, including the models referenced by the usage model and allocation
+     * @return Serialized WebDFD
+     */
+    public ByteBuffer loadAndConvertPCMStored(PCMUpload upload) {
+        var store = ModelStore.getInstance();
+        String key = upload.getKey();
+        var stored = store.getWebEditorDfd(key);
+        if (stored != null) {
+            return stored;
+        }
+        String webEditorDfd = convertPCM(upload);
+        store.put(key, upload.getFolder(), webEditorDfd);
+        return ByteBuffer.wrap(webEditorDfd.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private String loadAndConvert(String message) {
+        try (var upload = new PCMUpload(Long.MAX_VALUE)) {
+            int sectionStart = 0;
+            while (sectionStart <= message.length()) {
+                int sectionEnd = message.indexOf(FILE_SEPARATOR, sectionStart);
+                if (sectionEnd == -1) {
+                    sectionEnd = message.length();
+                }
+                addSection(upload, message, sectionStart, sectionEnd);
+                sectionStart = sectionEnd + FILE_SEPARATOR.length();
             }
-            return Util.serializeJson(convertPCM(usageModelFile, allocationFile, nodeCharacteristicsFile));
-        } catch (IOException e) {           
-            e.printStackTrace();
+            return convertPCM(upload);
+        } catch (IOException e) {
+            logger.error("Could not write PCM model files", e);
             throw new IllegalArgumentException("Invalid PCM Model");
         }
     }
     
+    /**
+     * Writes one {@code <file name>:<content>} section of a serialized PCM model into the upload without copying its content
+     * @param upload Upload the file is added to
+     * @param message Serialized PCM files
+     * @param start Start of the section in the message
+     * @param end End of the section in the message
+     * @throws IOException If writing the file fails
+     */
+    private void addSection(PCMUpload upload, String message, int start, int end) throws IOException {
+        while (start < end && Character.isWhitespace(message.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(message.charAt(end - 1))) {
+            end--;
+        }
+        int firstColon = message.indexOf(':', start);
+        if (firstColon == -1 || firstColon >= end) {
+            return;
+        }
+        upload.addFile(message.substring(start, firstColon), CharBuffer.wrap(message, firstColon + 1, end));
+    }
+    
+    private String convertPCM(PCMUpload upload) {
+        return convertPCM(upload.getUsageModel(), upload.getAllocation(), upload.getNodeCharacteristics());
+    }
+    
     /**
      * Convertes a Model in PCM representation into a WebEditor Json represenation
      * @param usageModelFile File where Usage Model is saved
      * @param allocationModelFile File where Allocation Model is saved
      * @param nodeCharacteristicsFile File where Node Characteristics Model is saved
-     * @return Created WebEditor Json representation
+     * @return Serialized WebEditor Json representation
      */
-    private WebEditorDfd convertPCM(File usageModelFile, File allocationModelFile, File nodeCharacteristicsFile){         
+    private String convertPCM(File usageModelFile, File allocationModelFile, File nodeCharacteristicsFile){         
         var converter = new PCM2DFDConverter();
         try {
-            var dfd = converter.convert(new PCMConverterModel(usageModelFile.toString(), allocationModelFile.toString(), nodeCharacteristicsFile.toString())); 
+            var dfd = Metrics.timeStage("pcm2dfd", () -> converter.convert(new PCMConverterModel(usageModelFile.toString(), allocationModelFile.toString(), nodeCharacteristicsFile.toString()))); 
             var dfdConverter = new DFD2WebConverter();
             dfdConverter.setTransposeFlowGraphFinder(DFDSimpleTransposeFlowGraphFinder.class);
-            return dfdConverter.convert(dfd).getModel();
+            WebEditorDfd webEditorDfd = Metrics.timeStage("load_pcm_dfd2web", () -> dfdConverter.convert(dfd).getModel());
+            return Util.serializeJson(webEditorDfd);
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid PCM Model");
         }        
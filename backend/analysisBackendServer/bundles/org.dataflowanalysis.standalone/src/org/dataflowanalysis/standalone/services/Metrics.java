@@ -0,0 +1,253 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the metrics of the backend, written in the Prometheus text format.
+ * Metrics are identified by their name and an optional list of label names and values, e.g. {@code histogram("dfa_stage_duration_seconds", ..., "stage", "web2dfd")}
+ */
+public final class Metrics {
+    /**
+     * Buckets for durations in seconds
+     */
+    public static final double[] DURATION_BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+    /**
+     * Buckets for payload sizes in bytes
+     */
+    public static final double[] SIZE_BUCKETS = {1024, 16 * 1024, 128 * 1024, 1024 * 1024, 8 * 1024 * 1024, 64 * 1024 * 1024, 256 * 1024 * 1024};
+    /**
+     * Buckets for the number of elements of a model
+     */
+    public static final double[] COUNT_BUCKETS = {10, 50, 100, 500, 1000, 5000, 10000, 50000};
+
+    private static final String STAGE_DURATION = "dfa_stage_duration_seconds";
+    private static final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the counter with the given name and labels, creating it if necessary
+     * @param name Name of the counter
+     * @param help Description of the counter
+     * @param labels Alternating label names and values
+     * @return Counter
+     */
+    public static Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").metrics.computeIfAbsent(formatLabels(labels), key -> new Counter());
+    }
+
+    /**
+     * Returns the histogram with the given name and labels, creating it if necessary
+     * @param name Name of the histogram
+     * @param help Description of the histogram
+     * @param buckets Upper bounds of the buckets in ascending order
+     * @param labels Alternating label names and values
+     * @return Histogram
+     */
+    public static Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        return (Histogram) family(name, help, "histogram").metrics.computeIfAbsent(formatLabels(labels), key -> new Histogram(buckets));
+    }
+
+    /**
+     * Registers a gauge whose value is read when the metrics are written. Registering the same name and labels again replaces the gauge
+     * @param name Name of the gauge
+     * @param help Description of the gauge
+     * @param value Supplier of the current value
+     * @param labels Alternating label names and values
+     */
+    public static void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge").metrics.put(formatLabels(labels), new Function(value));
+    }
+
+    /**
+     * Registers a counter that is maintained elsewhere, e.g. by a cache, and read when the metrics are written
+     * @param name Name of the counter
+     * @param help Description of the counter
+     * @param value Supplier of the current count
+     * @param labels Alternating label names and values
+     */
+    public static void counterFunction(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "counter").metrics.put(formatLabels(labels), new Function(value));
+    }
+
+    /**
+     * Executes a stage of a request and records its duration in {@value #STAGE_DURATION}
+     * @param <T> Type of the result
+     * @param stage Name of the stage
+     * @param work Work of the stage
+     * @return Result of the stage
+     */
+    public static <T> T timeStage(String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            recordStage(stage, start);
+        }
+    }
+
+    /**
+     * Records the duration of a stage in {@value #STAGE_DURATION}, for stages that cannot be wrapped by {@link #timeStage(String, Supplier)}
+     * @param stage Name of the stage
+     * @param startNanos Start of the stage as returned by {@link System#nanoTime()}
+     */
+    public static void recordStage(String stage, long startNanos) {
+        histogram(STAGE_DURATION, "Duration of the stages of a request", DURATION_BUCKETS, "stage", stage).observeNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Registers the counters of a cache
+     * @param cache Name of the cache
+     * @param statistics Supplier of the cache statistics
+     */
+    public static void registerCache(String cache, Supplier<BoundedCache.CacheStatistics> statistics) {
+        counterFunction("dfa_cache_hits_total", "Number of cache hits", () -> statistics.get().hits(), "cache", cache);
+        counterFunction("dfa_cache_misses_total", "Number of cache misses", () -> statistics.get().misses(), "cache", cache);
+        counterFunction("dfa_cache_evictions_total", "Number of evicted cache entries", () -> statistics.get().evictions(), "cache", cache);
+        gauge("dfa_cache_entries", "Number of cached entries", () -> statistics.get().size(), "cache", cache);
+        gauge("dfa_cache_weight", "Summed weight of the cached entries", () -> statistics.get().weight(), "cache", cache);
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text format
+     * @param writer Target of the metrics
+     * @throws IOException If writing fails
+     */
+    public static void write(Writer writer) throws IOException {
+        for (var family : new TreeMap<>(families).values()) {
+            writer.write("# HELP " + family.name + " " + family.help + "\n");
+            writer.write("# TYPE " + family.name + " " + family.type + "\n");
+            for (var metric : new TreeMap<>(family.metrics).entrySet()) {
+                metric.getValue().write(writer, family.name, metric.getKey());
+            }
+        }
+    }
+
+    private static Family family(String name, String help, String type) {
+        var family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalStateException("Metric " + name + " is already registered as " + family.type);
+        }
+        return family;
+    }
+
+    private static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels have to be given as name and value pairs");
+        }
+        var builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(labels[i]).append("=\"").append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        }
+        return builder.toString();
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String withLabels(String labels, String additionalLabel) {
+        if (labels.isEmpty()) {
+            return "{" + additionalLabel + "}";
+        }
+        return "{" + labels + "," + additionalLabel + "}";
+    }
+
+    private record Family(String name, String help, String type, Map<String, Metric> metrics) {
+        private Family(String name, String help, String type) {
+            this(name, help, type, new ConcurrentHashMap<>());
+        }
+    }
+
+    private interface Metric {
+        void write(Writer writer, String name, String labels) throws IOException;
+    }
+
+    public static final class Counter implements Metric {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        @Override
+        public void write(Writer writer, String name, String labels) throws IOException {
+            writer.write(name + (labels.isEmpty() ? "" : "{" + labels + "}") + " " + count.sum() + "\n");
+        }
+    }
+
+    public static final class Histogram implements Metric {
+        private final double[] buckets;
+        private final LongAdder[] counts;
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Histogram(double[] buckets) {
+            this.buckets = buckets.clone();
+            this.counts = new LongAdder[buckets.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        public void observe(double value) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (value <= buckets[i]) {
+                    counts[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sum.add(value);
+        }
+
+        /**
+         * Records a duration in seconds
+         * @param nanos Duration in nanoseconds
+         */
+        public void observeNanos(long nanos) {
+            observe((double) nanos / TimeUnit.SECONDS.toNanos(1));
+        }
+
+        @Override
+        public void write(Writer writer, String name, String labels) throws IOException {
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += counts[i].sum();
+                writer.write(name + "_bucket" + withLabels(labels, "le=\"" + formatValue(buckets[i]) + "\"") + " " + cumulative + "\n");
+            }
+            long total = Math.max(count.sum(), cumulative);
+            writer.write(name + "_bucket" + withLabels(labels, "le=\"+Inf\"") + " " + total + "\n");
+            String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+            writer.write(name + "_sum" + suffix + " " + sum.sum() + "\n");
+            writer.write(name + "_count" + suffix + " " + total + "\n");
+        }
+    }
+
+    private record Function(DoubleSupplier value) implements Metric {
+        @Override
+        public void write(Writer writer, String name, String labels) throws IOException {
+            writer.write(name + (labels.isEmpty() ? "" : "{" + labels + "}") + " " + formatValue(value.getAsDouble()) + "\n");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Encoding of diagrams in requests and responses.
+ * Json is the default, clients may send and accept the binary Smile encoding of the same Json structure instead, which is smaller and faster to parse
+ */
+public enum ModelEncoding {
+    JSON("text/plain;charset=UTF-8", "json", Util.objectMapper),
+    SMILE("application/x-jackson-smile", "smile", new ObjectMapper(new SmileFactory()));
+
+    private final String contentType;
+    private final String stagePrefix;
+    private final ObjectMapper objectMapper;
+
+    ModelEncoding(String contentType, String stagePrefix, ObjectMapper objectMapper) {
+        this.contentType = contentType;
+        this.stagePrefix = stagePrefix;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Determines the encoding of a request body
+     * @param contentType Content-Type header of the request, may be null
+     * @return Smile if the body is Smile encoded, Json otherwise
+     */
+    public static ModelEncoding ofContentType(String contentType) {
+        return contentType != null && contentType.startsWith(SMILE.contentType) ? SMILE : JSON;
+    }
+
+    /**
+     * Determines the encoding of a response
+     * @param accept Accept header of the request, may be null
+     * @return Smile if the client accepts it, Json otherwise
+     */
+    public static ModelEncoding ofAccept(String accept) {
+        return accept != null && accept.contains(SMILE.contentType) ? SMILE : JSON;
+    }
+
+    /**
+     * Content type of responses in this encoding
+     * @return Content type including the charset for text encodings
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Deserializes a WebDFD directly from a stream
+     * @param input Stream containing the encoded WebDFD
+     * @return Deserialized WebDFD
+     */
+    public WebEditorDfd read(InputStream input) {
+        if (this == JSON) {
+            return Util.deserializeJson(input);
+        }
+        return Metrics.timeStage(stagePrefix + "_parse", () -> {
+            try {
+                return objectMapper.readValue(input, WebEditorDfd.class);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid " + name() + " Model");
+            }
+        });
+    }
+
+    /**
+     * Serializes a value, e.g. a WebDFD or an analysis summary, directly into a stream. The stream is not closed
+     * @param value Value to be serialized
+     * @param outputStream Target of the encoded value
+     * @throws IOException If writing to the stream fails
+     */
+    public void write(Object value, OutputStream outputStream) throws IOException {
+        long start = System.nanoTime();
+        try (var generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            objectMapper.writeValue(generator, value);
+        } finally {
+            Metrics.recordStage(stagePrefix + "_serialize", start);
+        }
+    }
+
+    /**
+     * Writes an already serialized Json value, e.g. a memory mapped file, in this encoding. Json is written without copying it onto the heap first,
+     * other encodings are transcoded token by token without building the object tree
+     * @param json Serialized Json value, its position is not changed
+     * @param outputStream Target of the encoded value
+     * @throws IOException If writing to the stream fails
+     */
+    public void writeJson(ByteBuffer json, OutputStream outputStream) throws IOException {
+        if (this == JSON) {
+            var channel = Channels.newChannel(outputStream);
+            var content = json.duplicate();
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            return;
+        }
+        long start = System.nanoTime();
+        try (var parser = Util.objectMapper.getFactory().createParser(new ByteBufferBackedInputStream(json.duplicate()));
+                var generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } finally {
+            Metrics.recordStage(stagePrefix + "_serialize", start);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.dataflowanalysis.standalone.services;
+
+import org.apache.log4j.Logger;
+import org.dataflowanalysis.analysis.dfd.dsl.DFDDSLContextProvider;
+import org.dataflowanalysis.converter.dfd2web.DFD2WebConverter;
+import org.dataflowanalysis.converter.pcm2dfd.PCM2DFDConverter;
+import org.dataflowanalysis.converter.web2dfd.Web2DFDConverter;
+import org.dataflowanalysis.dfd.datadictionary.datadictionaryPackage;
+import org.dataflowanalysis.dfd.dataflowdiagram.dataflowdiagramPackage;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.impl.EPackageRegistryImpl;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceFactoryRegistryImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+
+/**
+ * Shared EMF setup for all services.
+ * The package and resource factory registries are filled once and only read afterwards, so resource sets of concurrent requests can share them
+ */
+public class ModelResources {
+    private static final Logger logger = Logger.getLogger(ModelResources.class);
+
+    private static final EPackage.Registry packageRegistry = new EPackageRegistryImpl(EPackage.Registry.INSTANCE);
+    private static final Resource.Factory.Registry resourceFactoryRegistry = new ResourceFactoryRegistryImpl();
+    private static volatile boolean initialized = false;
+
+    private ModelResources() {
+    }
+
+    /**
+     * Registers the DFD metamodels and the XMI resource factory and loads the converter and DSL classes, so the first request does not pay for it.
+     * Calling this more than once has no effect
+     */
+    public static synchronized void initialize() {
+        if (initialized) {
+            return;
+        }
+        long start = System.nanoTime();
+        resourceFactoryRegistry.getExtensionToFactoryMap().put(Resource.Factory.Registry.DEFAULT_EXTENSION, new XMIResourceFactoryImpl());
+        packageRegistry.put(dataflowdiagramPackage.eNS_URI, dataflowdiagramPackage.eINSTANCE);
+        packageRegistry.put(datadictionaryPackage.eNS_URI, datadictionaryPackage.eINSTANCE);
+
+        new DFDDSLContextProvider();
+        new Web2DFDConverter();
+        new DFD2WebConverter();
+        new PCM2DFDConverter();
+
+        initialized = true;
+        logger.info("Initialized model resources in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Creates a resource set that uses the shared registries.
+     * Converters keep state of a single conversion and are therefore still created per request, this only removes the setup of their dependencies
+     * @return New resource set for loading or saving DFD and DD models
+     */
+    public static ResourceSet createResourceSet() {
+        initialize();
+        ResourceSet resourceSet = new ResourceSetImpl();
+        resourceSet.setPackageRegistry(packageRegistry);
+        resourceSet.setResourceFactoryRegistry(resourceFactoryRegistry);
+        return resourceSet;
+    }
+}
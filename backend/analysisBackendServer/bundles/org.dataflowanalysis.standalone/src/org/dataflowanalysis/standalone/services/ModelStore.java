@@ -0,0 +1,317 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Content-addressed store of uploaded models and their converted forms on the local disk.
+ * Every entry is a folder named by the SHA-256 hash of the upload that contains the upload itself and the converted WebEditor Json representation.
+ * Reading an entry maps the Json file into memory instead of converting the model again.
+ * Entries are evicted in least recently used order once their summed size exceeds the limit, the order survives restarts through the modification time of the Json file.
+ * The store is disabled unless a size limit is configured, its folder is only accessible by the owner on file systems with POSIX permissions
+ */
+public class ModelStore {
+    private static final Logger logger = Logger.getLogger(ModelStore.class);
+    private static final String UPLOAD_FILE = "upload";
+    private static final String WEB_EDITOR_FILE = "model.json";
+    private static final String TEMP_PREFIX = ".tmp-";
+    private static ModelStore instance;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final boolean enabled;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long size;
+
+    /**
+     * Creates a store and indexes the entries that already exist in its directory
+     * @param directory Folder of the store, created if necessary
+     * @param maxBytes Maximum summed size of all entries, zero disables the store
+     */
+    public ModelStore(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.enabled = maxBytes > 0 && loadIndex();
+    }
+
+    /**
+     * Returns the store shared by all endpoints, configured by {@code dfa.modelStore.directory} and {@code dfa.modelStore.maxBytes}
+     * @return Shared store
+     */
+    public static synchronized ModelStore getInstance() {
+        if (instance == null) {
+            String defaultDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "dfa-model-store").toString();
+            instance = new ModelStore(Paths.get(Configuration.getString("dfa.modelStore.directory", defaultDirectory)),
+                    Configuration.getLong("dfa.modelStore.maxBytes", 0));
+            Metrics.registerCache("modelStore", instance::getStatistics);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the key of an upload
+     * @param kind Kind of the upload, e.g. the endpoint that converts it
+     * @param upload Uploaded model in serialized form
+     * @return Hex encoded SHA-256 hash of kind and upload
+     */
+    public static String createKey(String kind, String upload) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        digest.update(kind.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+        digest.update(upload.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Looks up the converted WebEditor Json representation of an upload and marks the entry as recently used
+     * @param key Key of the upload
+     * @return Read-only buffer mapping the serialized WebEditor Json representation or null if the upload is not stored
+     */
+    public ByteBuffer getWebEditorDfd(String key) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            if (entries.get(key) == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+        long start = System.nanoTime();
+        Path file = directory.resolve(key).resolve(WEB_EDITOR_FILE);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return buffer;
+        } catch (IOException e) {
+            logger.warn("Unable to read stored model " + key + ", removing it", e);
+            remove(key);
+            misses.incrementAndGet();
+            return null;
+        } finally {
+            Metrics.recordStage("model_store_read", start);
+        }
+    }
+
+    /**
+     * Stores an upload with its converted WebEditor Json representation, evicting least recently used entries until the size limit holds again.
+     * Failing to write the entry is logged and otherwise ignored, the upload is converted again on its next request
+     * @param key Key of the upload
+     * @param upload Uploaded model in serialized form
+     * @param webEditorDfd Serialized WebEditor Json representation
+     */
+    public void put(String key, String upload, String webEditorDfd) {
+        put(key, entry -> Files.writeString(entry.resolve(UPLOAD_FILE), upload), webEditorDfd);
+    }
+
+    /**
+     * Stores an upload that consists of several files like {@link #put(String, String, String)}.
+     * The files are copied from their folder on disk, keeping their relative paths
+     * @param key Key of the upload
+     * @param uploadFolder Folder containing the uploaded files
+     * @param webEditorDfd Serialized WebEditor Json representation
+     */
+    public void put(String key, Path uploadFolder, String webEditorDfd) {
+        put(key, entry -> copyFolder(uploadFolder, entry.resolve(UPLOAD_FILE)), webEditorDfd);
+    }
+
+    private void put(String key, UploadWriter uploadWriter, String webEditorDfd) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            if (entries.containsKey(key)) {
+                return;
+            }
+        }
+        long start = System.nanoTime();
+        Path temp = directory.resolve(TEMP_PREFIX + UUID.randomUUID());
+        try {
+            Files.createDirectory(temp);
+            uploadWriter.write(temp);
+            Files.writeString(temp.resolve(WEB_EDITOR_FILE), webEditorDfd);
+            long entrySize = folderSize(temp);
+            if (entrySize > maxBytes) {
+                return;
+            }
+            try {
+                Files.move(temp, directory.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException | AtomicMoveNotSupportedException e) {
+                //Stored concurrently by another request or not movable, keep the existing entry
+                return;
+            }
+            synchronized (entries) {
+                entries.put(key, entrySize);
+                size += entrySize;
+                evict();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to store model " + key, e);
+        } finally {
+            deleteFolder(temp);
+            Metrics.recordStage("model_store_write", start);
+        }
+    }
+
+    /**
+     * Returns the counters of the store
+     * @return Store statistics, the weight is the summed size of all entries in bytes
+     */
+    public BoundedCache.CacheStatistics getStatistics() {
+        synchronized (entries) {
+            return new BoundedCache.CacheStatistics(hits.get(), misses.get(), evictions.get(), entries.size(), size);
+        }
+    }
+
+    private void evict() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (size > maxBytes && iterator.hasNext()) {
+            var entry = iterator.next();
+            size -= entry.getValue();
+            evicted.add(entry.getKey());
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+        evicted.forEach(key -> deleteFolder(directory.resolve(key)));
+    }
+
+    private void remove(String key) {
+        synchronized (entries) {
+            var entrySize = entries.remove(key);
+            if (entrySize != null) {
+                size -= entrySize;
+            }
+        }
+        deleteFolder(directory.resolve(key));
+    }
+
+    /**
+     * Indexes the existing entries from least to most recently used and removes leftovers of interrupted writes
+     * @return False if the folder of the store cannot be used
+     */
+    private boolean loadIndex() {
+        try {
+            createPrivateDirectory(directory);
+            List<Path> folders;
+            try (Stream<Path> paths = Files.list(directory)) {
+                folders = paths.filter(Files::isDirectory).toList();
+            }
+            List<Path> stored = new ArrayList<>();
+            for (var folder : folders) {
+                if (folder.getFileName().toString().startsWith(TEMP_PREFIX) || !Files.isRegularFile(folder.resolve(WEB_EDITOR_FILE))) {
+                    deleteFolder(folder);
+                } else {
+                    stored.add(folder);
+                }
+            }
+            stored.sort(Comparator.comparing(folder -> folder.resolve(WEB_EDITOR_FILE).toFile().lastModified()));
+            synchronized (entries) {
+                for (var folder : stored) {
+                    long entrySize = folderSize(folder);
+                    entries.put(folder.getFileName().toString(), entrySize);
+                    size += entrySize;
+                }
+                evict();
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Unable to read model store " + directory + ", models are not stored", e);
+            return false;
+        }
+    }
+
+    /**
+     * Creates the folder of the store and restricts it to its owner if the file system supports POSIX permissions.
+     * Restricting an existing folder fails unless it belongs to the user running the backend
+     * @param directory Folder of the store
+     * @throws IOException If the folder cannot be created or restricted
+     */
+    private static void createPrivateDirectory(Path directory) throws IOException {
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory);
+            return;
+        }
+        var ownerOnly = PosixFilePermissions.fromString("rwx------");
+        if (Files.notExists(directory)) {
+            if (directory.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(directory.toAbsolutePath().getParent());
+            }
+            Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(ownerOnly));
+        }
+        Files.setPosixFilePermissions(directory, ownerOnly);
+    }
+
+    private static long folderSize(Path folder) throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void copyFolder(Path source, Path target) throws IOException {
+        try (Stream<Path> files = Files.walk(source)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                var copy = target.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(file, copy);
+                }
+            }
+        }
+    }
+
+    private static void deleteFolder(Path folder) {
+        if (!Files.exists(folder)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.warn("Unable to delete " + folder, e);
+        }
+    }
+
+    /**
+     * Writes the upload into the folder of a new entry
+     */
+    @FunctionalInterface
+    private interface UploadWriter {
+        void write(Path entry) throws IOException;
+    }
+}
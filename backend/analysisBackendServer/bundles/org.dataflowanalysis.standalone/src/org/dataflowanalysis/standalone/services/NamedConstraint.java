@@ -0,0 +1,11 @@
+package org.dataflowanalysis.standalone.services;
+
+import org.dataflowanalysis.analysis.dsl.AnalysisConstraint;
+
+/**
+ * Parsed constraint of a model together with the name it was given in the model
+ * @param name Name of the constraint as shown in the editor, may contain spaces
+ * @param constraint Parsed constraint
+ */
+public record NamedConstraint(String name, AnalysisConstraint constraint) {
+}
@@ -0,0 +1,215 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Files of a PCM model that are streamed one by one into a temporary folder, e.g. from the parts of a multipart request or the entries of a zip archive.
+ * Every file is kept, so the converter resolves the repository, system and resource environment models referenced by the usage model and allocation.
+ * Only a small buffer is held in memory per file, the summed size of all files is limited. The folder is deleted when the upload is closed
+ */
+public class PCMUpload implements AutoCloseable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String randomFolder = UUID.randomUUID().toString();
+    private final Path folder;
+    private final long maxBytes;
+    private final Map<String, String> fileHashes = new TreeMap<>();
+    private long totalBytes;
+    private File usageModel;
+    private File allocation;
+    private File nodeCharacteristics;
+
+    /**
+     * Creates an empty upload
+     * @param maxBytes Maximum summed size of all files
+     */
+    public PCMUpload(long maxBytes) {
+        this.folder = Paths.get(System.getProperty("java.io.tmpdir")).resolve(randomFolder).normalize();
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Streams a file into the upload. The stream is read to its end but not closed
+     * @param name Path of the file relative to the model folder, may contain sub folders
+     * @param content Content of the file
+     * @throws IOException If reading or writing the file fails
+     * @throws IllegalArgumentException If the name leaves the model folder
+     * @throws SizeLimitExceededException If the upload exceeds its size limit
+     */
+    public void addFile(String name, InputStream content) throws IOException {
+        try (var output = createFile(name)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                countBytes(read);
+                output.write(buffer, 0, read);
+            }
+        }
+        registerFile(name);
+    }
+
+    /**
+     * Writes a file whose content is already in memory. The content is encoded in chunks of a small buffer, without copying it into a String first
+     * @param name Path of the file relative to the model folder, may contain sub folders
+     * @param content Content of the file, e.g. a section of a larger message
+     * @throws IOException If writing the file fails
+     * @throws IllegalArgumentException If the name leaves the model folder
+     * @throws SizeLimitExceededException If the upload exceeds its size limit
+     */
+    public void addFile(String name, CharSequence content) throws IOException {
+        var encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        var input = CharBuffer.wrap(content);
+        var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (var output = createFile(name)) {
+            while (encoder.encode(input, buffer, true).isOverflow()) {
+                writeBuffer(buffer, output);
+            }
+            while (encoder.flush(buffer).isOverflow()) {
+                writeBuffer(buffer, output);
+            }
+            writeBuffer(buffer, output);
+        }
+        registerFile(name);
+    }
+
+    /**
+     * Streams all files of a zip archive into the upload, keeping their relative paths. The stream is closed afterwards
+     * @param archive Zip archive containing the model files
+     * @throws IOException If the archive cannot be read or a file cannot be written
+     */
+    public void addArchive(InputStream archive) throws IOException {
+        try (var zip = new ZipInputStream(archive)) {
+            for (var entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (!entry.isDirectory()) {
+                    addFile(entry.getName(), zip);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the key of the uploaded model in the {@link ModelStore} from the names and contents of all files, independent of their upload order
+     * @return Key of the model
+     */
+    public String getKey() {
+        var manifest = new StringBuilder();
+        fileHashes.forEach((name, hash) -> manifest.append(name).append('\0').append(hash).append('\n'));
+        return ModelStore.createKey("loadPCMFiles", manifest.toString());
+    }
+
+    /**
+     * Returns the folder containing the uploaded files
+     * @return Model folder
+     */
+    public Path getFolder() {
+        return folder;
+    }
+
+    /**
+     * Returns the usage model, the entry point of the conversion
+     * @return Usage model file
+     * @throws IllegalArgumentException If no usage model was uploaded
+     */
+    public File getUsageModel() {
+        return require(usageModel, "usagemodel");
+    }
+
+    /**
+     * Returns the allocation model
+     * @return Allocation model file
+     * @throws IllegalArgumentException If no allocation model was uploaded
+     */
+    public File getAllocation() {
+        return require(allocation, "allocation");
+    }
+
+    /**
+     * Returns the node characteristics model
+     * @return Node characteristics model file
+     * @throws IllegalArgumentException If no node characteristics model was uploaded
+     */
+    public File getNodeCharacteristics() {
+        return require(nodeCharacteristics, "nodecharacteristics");
+    }
+
+    @Override
+    public void close() {
+        Util.deleteTempFolder(randomFolder);
+    }
+
+    private void writeBuffer(ByteBuffer buffer, OutputStream output) throws IOException {
+        buffer.flip();
+        countBytes(buffer.remaining());
+        output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        buffer.clear();
+    }
+
+    private void countBytes(int bytes) {
+        totalBytes += bytes;
+        if (totalBytes > maxBytes) {
+            throw new SizeLimitExceededException("PCM model exceeds " + maxBytes + " bytes");
+        }
+    }
+
+    private OutputStream createFile(String name) throws IOException {
+        if (name.contains("\\")) {
+            throw new IllegalArgumentException("Invalid file name: " + name);
+        }
+        Path file = folder.resolve(name).normalize();
+        if (!file.startsWith(folder) || file.equals(folder)) {
+            throw new IllegalArgumentException("Invalid file name: " + name);
+        }
+        Files.createDirectories(file.getParent());
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        return new DigestOutputStream(Files.newOutputStream(file), digest) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                fileHashes.put(folder.relativize(file).toString().replace(File.separatorChar, '/'), HexFormat.of().formatHex(digest.digest()));
+            }
+        };
+    }
+
+    private void registerFile(String name) {
+        var file = folder.resolve(name).normalize().toFile();
+        if (name.endsWith(".usagemodel")) {
+            usageModel = file;
+        } else if (name.endsWith(".allocation")) {
+            allocation = file;
+        } else if (name.endsWith(".nodecharacteristics")) {
+            nodeCharacteristics = file;
+        }
+    }
+
+    private static File require(File file, String extension) {
+        if (file == null) {
+            throw new IllegalArgumentException("Missing ." + extension + " file");
+        }
+        return file;
+    }
+}
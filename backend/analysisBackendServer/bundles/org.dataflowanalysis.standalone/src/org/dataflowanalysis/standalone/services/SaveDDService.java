@@ -1,11 +1,18 @@
 package org.dataflowanalysis.standalone.services;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
 
+import org.dataflowanalysis.converter.dfd2web.DataFlowDiagramAndDictionary;
 import org.dataflowanalysis.converter.web2dfd.Web2DFDConverter;
 import org.dataflowanalysis.converter.web2dfd.WebEditorConverterModel;
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
 
 public class SaveDDService {
     /**
@@ -15,26 +22,77 @@ public class SaveDDService {
      * @return Concatenation of DFD and DD files as string
      */
     public String convertToDFDandStringify(String diagramMessage, String name) {
-        var webEditorDfd = Util.deserializeJson(diagramMessage);
-        
+        return convertToDFDandStringify(Util.deserializeJson(diagramMessage), name);
+    }
+    
+    /**
+     * Converts a deserialized model in WebEditor Json representation into the DFD metamodel representation and return the DFD files as a concatenated string
+     * @param webEditorDfd model in WebEditor Json representation to be converted
+     * @param name Name of the files to be created
+     * @return Concatenation of DFD and DD files as string
+     */
+    public String convertToDFDandStringify(WebEditorDfd webEditorDfd, String name) {
         try {
             var converter = new Web2DFDConverter();
-            var dfd = converter.convert(new WebEditorConverterModel(webEditorDfd));
-            String tempDir = System.getProperty("java.io.tmpdir");
-            var dfdFile = new File(tempDir, name + ".dataflowdiagram");
-            var ddFile = new File(tempDir, name + ".datadictionary");
-            dfd.save(dfdFile.getParent(), name);
-            
-            String dfdContent = Files.readString(dfdFile.toPath());
-            String ddContent = Files.readString(ddFile.toPath());
-
-            dfdFile.delete();
-            ddFile.delete();
-            return  dfdContent + "\n" + ddContent;
+            var dfd = Metrics.timeStage("web2dfd", () -> converter.convert(new WebEditorConverterModel(webEditorDfd)));
+            long saveStart = System.nanoTime();
+            try {
+                if (Configuration.getBoolean(LoadDDService.IN_MEMORY_KEY, true)) {
+                    return saveInMemory(dfd, name);
+                }
+                return saveToDisk(dfd, name);
+            } finally {
+                Metrics.recordStage("dfd_save", saveStart);
+            }
             
         } catch (IOException e) {
             e.printStackTrace();
             throw new IllegalArgumentException("Invalid Model");
         }
     }
+    
+    /**
+     * Serializes the DFD and DD without touching the file system
+     * @param dfd Converted DFD and DD
+     * @param name Name of the files to be created
+     * @return Concatenation of DFD and DD files as string
+     * @throws IOException
+     */
+    private String saveInMemory(DataFlowDiagramAndDictionary dfd, String name) throws IOException {
+        ResourceSet resourceSet = ModelResources.createResourceSet();
+        var handler = InMemoryURIHandler.register(resourceSet);
+        URI dfdURI = InMemoryURIHandler.createURI(name + ".dataflowdiagram");
+        URI ddURI = InMemoryURIHandler.createURI(name + ".datadictionary");
+        
+        Resource dfdResource = resourceSet.createResource(dfdURI);
+        Resource ddResource = resourceSet.createResource(ddURI);
+        dfdResource.getContents().add(dfd.dataFlowDiagram());
+        ddResource.getContents().add(dfd.dataDictionary());
+        dfdResource.save(null);
+        ddResource.save(null);
+        
+        return handler.getString(dfdURI) + "\n" + handler.getString(ddURI);
+    }
+    
+    /**
+     * Saves the DFD and DD into a temporary folder and reads them back. Only used if in-memory saving is disabled
+     * @param dfd Converted DFD and DD
+     * @param name Name of the files to be created
+     * @return Concatenation of DFD and DD files as string
+     * @throws IOException
+     */
+    private String saveToDisk(DataFlowDiagramAndDictionary dfd, String name) throws IOException {
+        String randomFolder = UUID.randomUUID().toString();
+        Path folder = Paths.get(System.getProperty("java.io.tmpdir")).resolve(randomFolder).normalize();
+        try {
+            Files.createDirectories(folder);
+            dfd.save(folder.toString(), name);
+            
+            String dfdContent = Files.readString(folder.resolve(name + ".dataflowdiagram"));
+            String ddContent = Files.readString(folder.resolve(name + ".datadictionary"));
+            return  dfdContent + "\n" + ddContent;
+        } finally {
+            Util.deleteTempFolder(randomFolder);
+        }
+    }
 }
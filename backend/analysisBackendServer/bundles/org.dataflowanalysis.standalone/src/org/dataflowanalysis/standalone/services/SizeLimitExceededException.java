@@ -0,0 +1,16 @@
+package org.dataflowanalysis.standalone.services;
+
+/**
+ * Thrown if an upload exceeds its configured size limit, answered with 413 by the servlets
+ */
+public class SizeLimitExceededException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new exception
+     * @param message Description of the exceeded limit
+     */
+    public SizeLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -3,42 +3,69 @@ package org.dataflowanalysis.standalone.services;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Comparator;
 import java.util.List;
 
 import org.apache.log4j.Logger;
-import org.dataflowanalysis.analysis.dfd.dsl.DFDDSLContextProvider;
-import org.dataflowanalysis.analysis.dsl.AnalysisConstraint;
-import org.dataflowanalysis.analysis.utils.StringView;
 import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 public class Util {
     private static final Logger logger = Logger.getLogger(Util.class);
     
+    /**
+     * Shared Json mapper of all services. Its configuration must not be changed after startup
+     */
+    static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectReader webEditorDfdReader = objectMapper.readerFor(WebEditorDfd.class);
+    private static final ObjectWriter webEditorDfdWriter = objectMapper.writerFor(WebEditorDfd.class);
+    private static final ConstraintCache constraintCache = new ConstraintCache(Configuration.getInt("dfa.constraintCache.maxEntries", 1024));
+    
+    static {
+        Metrics.registerCache("constraint", constraintCache::getStatistics);
+        Metrics.counterFunction("dfa_constraint_parse_saved_seconds_total", "Parse time saved by cached constraints", () -> constraintCache.getSavedParseNanos() / 1e9);
+    }
+    
     /**
      * Deserializes WebDFD
      * @param json Serialized WebDFD
      * @return Deserialized WebDFD
      */
     public static WebEditorDfd deserializeJson(String json){
-        var objectMapper = new ObjectMapper();
-        WebEditorDfd webEditorDfd;
-        try {
-            webEditorDfd = objectMapper.readValue(json, WebEditorDfd.class);
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new IllegalArgumentException("Invalid Json Model");
-        } 
-        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        return webEditorDfd;
+        return Metrics.timeStage("json_parse", () -> {
+            try {
+                return webEditorDfdReader.readValue(json);
+            } catch (IOException e) {
+                logger.warn("Invalid Json Model: " + e.getMessage());
+                throw new IllegalArgumentException("Invalid Json Model");
+            }
+        });
+    }
+    
+    /**
+     * Deserializes WebDFD directly from a stream without buffering the serialized form
+     * @param json Stream containing the serialized WebDFD
+     * @return Deserialized WebDFD
+     */
+    public static WebEditorDfd deserializeJson(InputStream json){
+        return Metrics.timeStage("json_parse", () -> {
+            try {
+                return webEditorDfdReader.readValue(json);
+            } catch (IOException e) {
+                logger.warn("Invalid Json Model: " + e.getMessage());
+                throw new IllegalArgumentException("Invalid Json Model");
+            }
+        });
     }
     
     /**
@@ -48,32 +75,58 @@ public class Util {
      * @throws JsonProcessingException Should not happen in theory
      */
     public static String serializeJson(WebEditorDfd webEditorDfd) throws JsonProcessingException {
-        var objectMapper = new ObjectMapper();
-        return objectMapper.writeValueAsString(webEditorDfd);
+        long start = System.nanoTime();
+        try {
+            return webEditorDfdWriter.writeValueAsString(webEditorDfd);
+        } finally {
+            Metrics.recordStage("json_serialize", start);
+        }
     }
     
     /**
-     * Takes the constraints from a WebDFD and turns them into AnalysisConstraint
+     * Serializes a webDFD directly into a stream. The stream is not closed
+     * @param webEditorDfd WebDFD to be serialized
+     * @param outputStream Target of the serialized WebDFD
+     * @throws IOException If writing to the stream fails
+     */
+    public static void serializeJson(WebEditorDfd webEditorDfd, OutputStream outputStream) throws IOException {
+        long start = System.nanoTime();
+        try (var generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            webEditorDfdWriter.writeValue(generator, webEditorDfd);
+        } finally {
+            Metrics.recordStage("json_serialize", start);
+        }
+    }
+
+    
+    /**
+     * Takes the constraints from a WebDFD and turns them into AnalysisConstraint.
+     * Constraints that were parsed before are taken from the constraint cache
      * @param webEditorDfd Full WebDFD
-     * @return Converted AnalysisConstraints
+     * @return Converted AnalysisConstraints with their names, empty if the WebDFD has no constraints
      */
-    public static List<AnalysisConstraint> parseConstraints(WebEditorDfd webEditorDfd) {
-        return webEditorDfd.constraints().stream()
+    public static List<NamedConstraint> parseConstraints(WebEditorDfd webEditorDfd) {
+        if (webEditorDfd.constraints() == null) {
+            return List.of();
+        }
+        return Metrics.timeStage("constraint_parse", () -> webEditorDfd.constraints().stream()
             .filter(it -> it.constraint() != null && !it.constraint().isEmpty())
-            .map(it -> {
-                StringView string = new StringView("- " + it.name() + ": " + it.constraint().replace("\n", ""));
-                var constraint = AnalysisConstraint.fromString(string, new DFDDSLContextProvider());
-                if (constraint.failed()) {
-                    logger.error(constraint.getError());
-                    throw new IllegalArgumentException("Unable to parse constraint: " + it.name());                     
-                }
-                var constraint2 = constraint.getResult();
-                return constraint2;
-            }).toList();            
+            .map(it -> new NamedConstraint(it.name(), constraintCache.parse(it.name(), it.constraint())))
+            .toList());
+    }
+    
+    /**
+     * Returns the cache of parsed constraints
+     * @return Constraint cache
+     */
+    public static ConstraintCache getConstraintCache() {
+        return constraintCache;
     }
     
     /**
-     * Saves the content as a temporary file for further processing
+     * Saves the content as a temporary file for further processing.
+     * The caller has to remove the folder with {@link #deleteTempFolder(String)} afterwards
      * @param name Name of the temp file
      * @param content Content of the temp file
      * @return File Object
@@ -99,11 +152,22 @@ public class Util {
         
         Files.writeString(filePath, content);
 
-        File file = filePath.toFile();
-
-        file.deleteOnExit();
-        folder.toFile().deleteOnExit();
+        return filePath.toFile();
+    }
 
-        return file;
-    }    
+    /**
+     * Deletes a temporary folder created by {@link #createAndWriteTempFile(String, String, String)} together with its content
+     * @param randomFolder Name of the temp folder
+     */
+    public static void deleteTempFolder(String randomFolder) {
+        Path folder = Paths.get(System.getProperty("java.io.tmpdir")).resolve(randomFolder).normalize();
+        if (!Files.isDirectory(folder)) {
+            return;
+        }
+        try (var files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.warn("Unable to delete temporary folder " + folder, e);
+        }
+    }
 }
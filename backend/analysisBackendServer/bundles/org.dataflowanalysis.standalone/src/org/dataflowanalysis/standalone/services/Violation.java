@@ -0,0 +1,33 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.dataflowanalysis.converter.web2dfd.model.WebEditorDfd;
+
+/**
+ * Node of a model that violates at least one constraint
+ * @param id Id of the node
+ * @param text Name of the node
+ * @param constraints Names of the violated constraints
+ */
+public record Violation(String id, String text, List<String> constraints) {
+    /**
+     * Collects the violations of an analyzed model, a node violating a constraint in several transpose flow graphs is reported once
+     * @param webEditorDfd Model that was analyzed, determines the order of the violations
+     * @param violatedConstraints Names of the constraints violated by each node by node id, see {@link FlowGraphAnalysis.Result#violations()}
+     * @return Violating nodes
+     */
+    public static List<Violation> collect(WebEditorDfd webEditorDfd, Map<String, ? extends Collection<String>> violatedConstraints) {
+        List<Violation> violations = new ArrayList<>();
+        for (var node : webEditorDfd.model().children()) {
+            var constraints = violatedConstraints.get(node.id());
+            if (constraints != null && !constraints.isEmpty() && node.type().startsWith("node")) {
+                violations.add(new Violation(node.id(), node.text(), List.copyOf(constraints)));
+            }
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,77 @@
+package org.dataflowanalysis.standalone.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Prepares the backend for its first requests and tracks whether it is ready.
+ * The warm-up initializes the model resources and runs a built-in sample diagram through the analysis, saveDD and loadDD services, so the converters,
+ * the constraint parser and the Json mapping are loaded and compiled before the first request instead of during it
+ */
+public final class Warmup {
+    private static final Logger logger = Logger.getLogger(Warmup.class);
+    private static final String SAMPLE_DIAGRAM = "warmup-diagram.json";
+    private static volatile boolean ready = false;
+
+    private Warmup() {
+    }
+
+    /**
+     * Returns whether the warm-up finished and requests are answered at full speed
+     * @return True once the backend is ready
+     */
+    public static boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Initializes the model resources and, if {@code dfa.warmup.enabled} is set, runs the sample diagram {@code dfa.warmup.iterations} times.
+     * Failing steps are logged, the backend is reported ready afterwards in any case
+     */
+    public static void run() {
+        long start = System.nanoTime();
+        ModelResources.initialize();
+        if (Configuration.getBoolean("dfa.warmup.enabled", true)) {
+            int iterations = Configuration.getInt("dfa.warmup.iterations", 5);
+            try {
+                String sample = readSample();
+                for (int i = 0; i < iterations; i++) {
+                    runSample(sample);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Warm-up failed, continuing without it", e);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Metrics.gauge("dfa_warmup_seconds", "Duration of the warm-up", () -> seconds);
+        ready = true;
+        logger.info("Ready after a warm-up of " + Math.round(seconds * 1000) + " ms");
+    }
+
+    private static void runSample(String sample) throws IOException {
+        var analyzeService = new AnalyzeService();
+        var webEditorDfd = Util.deserializeJson(sample);
+        analyzeService.summarize(webEditorDfd, true, true);
+        //Bypasses the result cache so that every iteration runs the converters
+        Util.serializeJson(AnalyzeService.mergeAnnotations(webEditorDfd, analyzeService.analyzeAnnotations(webEditorDfd)));
+
+        String saved = new SaveDDService().convertToDFDandStringify(Util.deserializeJson(sample), "warmup");
+        int dataDictionaryStart = saved.indexOf("<?xml", 1);
+        if (dataDictionaryStart > 0) {
+            String message = saved.substring(0, dataDictionaryStart) + "\n:DD:\n" + saved.substring(dataDictionaryStart);
+            new LoadDDService().safeLoadAndConvertDFDString(message, "warmup");
+        }
+    }
+
+    private static String readSample() throws IOException {
+        try (InputStream input = Warmup.class.getResourceAsStream(SAMPLE_DIAGRAM)) {
+            if (input == null) {
+                throw new IOException("Sample diagram " + SAMPLE_DIAGRAM + " not found");
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}